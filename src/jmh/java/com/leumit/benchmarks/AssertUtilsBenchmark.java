@@ -0,0 +1,140 @@
+package com.leumit.benchmarks;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.leumit.context.TestContext;
+import com.leumit.reporting.ReportEventSink;
+import com.leumit.reporting.ReportNode;
+import com.leumit.utils.AssertUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AssertUtilsBenchmark - Cost of passing assertions, with the pass logged to an Extent report node
+ * Extent recomputes a node's status over all its entries on every log, so a node that keeps growing
+ * would measure Extent rather than the framework: like in a real run, every scenario node gets a
+ * bounded number of assertions and every feature node a bounded number of scenarios.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class AssertUtilsBenchmark {
+    private static final int ASSERTIONS_PER_SCENARIO = 20;
+    private static final int SCENARIOS_PER_FEATURE = 20;
+
+    /**
+     * Report shared by all benchmark threads; every iteration logs to a fresh one
+     */
+    @State(Scope.Benchmark)
+    public static class Report {
+        ExtentReports reports;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            reports = new ExtentReports();
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            ReportEventSink.getInstance().awaitDrained();
+        }
+    }
+
+    /**
+     * Scenario node of the benchmark thread, set on its TestContext like the scenario hook does
+     */
+    @State(Scope.Thread)
+    public static class Scenario {
+        private Report report;
+        private ReportNode feature;
+        private int scenarios;
+        private int assertions;
+
+        @Setup(Level.Iteration)
+        public void setUp(Report report) {
+            this.report = report;
+            scenarios = SCENARIOS_PER_FEATURE;
+            assertions = ASSERTIONS_PER_SCENARIO;
+        }
+
+        /**
+         * Move to the next scenario node once the current one has had its share of assertions
+         */
+        void next() {
+            next(false);
+        }
+
+        /**
+         * Move to the next scenario node, evaluating the soft assertions of the current one like the scenario end does
+         * @param soft Whether the next scenario records its assertions
+         */
+        void next(boolean soft) {
+            if (++assertions < ASSERTIONS_PER_SCENARIO) {
+                return;
+            }
+            if (soft) {
+                AssertUtils.assertAll();
+            }
+            if (++scenarios >= SCENARIOS_PER_FEATURE) {
+                feature = ReportEventSink.getInstance().createTest(report.reports, "Feature " + Thread.currentThread().getName());
+                scenarios = 0;
+            }
+            TestContext.getInstance().setReportNode(feature.createNode("Scenario " + scenarios));
+            if (soft) {
+                AssertUtils.enableSoftAssertions();
+            }
+            assertions = 0;
+        }
+    }
+
+    @Benchmark
+    public void assertTruePass(Scenario scenario) {
+        scenario.next();
+        AssertUtils.assertTrue(true, "Page title is not empty", "Page title is empty");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void assertTruePassContended(Scenario scenario) {
+        scenario.next();
+        AssertUtils.assertTrue(true, "Page title is not empty", "Page title is empty");
+    }
+
+    @Benchmark
+    public void assertTruePassSoft(Scenario scenario) {
+        scenario.next(true);
+        AssertUtils.assertTrue(true, () -> "Page title is not empty", () -> "Page title is empty");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void assertTruePassSoftContended(Scenario scenario) {
+        scenario.next(true);
+        AssertUtils.assertTrue(true, () -> "Page title is not empty", () -> "Page title is empty");
+    }
+
+    @Benchmark
+    public void assertContainsPass(Scenario scenario) {
+        scenario.next();
+        AssertUtils.assertContains("לאומית שירותי בריאות", "לאומית",
+                "Page title contains expected text", "Page title does not contain expected text");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void assertContainsPassContended(Scenario scenario) {
+        scenario.next();
+        AssertUtils.assertContains("לאומית שירותי בריאות", "לאומית",
+                "Page title contains expected text", "Page title does not contain expected text");
+    }
+}
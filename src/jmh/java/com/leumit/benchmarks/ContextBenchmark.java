@@ -0,0 +1,58 @@
+package com.leumit.benchmarks;
+
+import com.leumit.config.ConfigManager;
+import com.leumit.context.TestContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ContextBenchmark - Cost of the singletons every step goes through
+ * The contended variants run on 8 threads at once, like parallel scenarios do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+public class ContextBenchmark {
+
+    @Benchmark
+    public TestContext testContextGetInstance() {
+        return TestContext.getInstance();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public TestContext testContextGetInstanceContended() {
+        return TestContext.getInstance();
+    }
+
+    @Benchmark
+    public String configGetProperty() {
+        return ConfigManager.getInstance().getProperty("baseUrl");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String configGetPropertyContended() {
+        return ConfigManager.getInstance().getProperty("baseUrl");
+    }
+
+    @Benchmark
+    public int configGetIntProperty() {
+        return ConfigManager.getInstance().getIntProperty("timeout", 30);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int configGetIntPropertyContended() {
+        return ConfigManager.getInstance().getIntProperty("timeout", 30);
+    }
+}
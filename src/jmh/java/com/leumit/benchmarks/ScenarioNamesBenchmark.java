@@ -0,0 +1,60 @@
+package com.leumit.benchmarks;
+
+import com.leumit.utils.ScenarioNames;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ScenarioNamesBenchmark - Cost of naming features and steps in the hooks, including their logging
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+public class ScenarioNamesBenchmark {
+    private final String featureUri = "classpath:features/web/basic_web_client_tests.feature";
+    private final String fileName = "basic_web_client_tests";
+    private final String scenarioString = "io.cucumber.java.Scenario@1b2c3d4e TestCase [Navigate to home page]"
+            + " Step [I open the URL \"https://leumit.co.il/\"] Step [The page title should contain \"לאומית\"]";
+
+    @Benchmark
+    public String extractFeatureName() {
+        return ScenarioNames.extractFeatureName(featureUri);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String extractFeatureNameContended() {
+        return ScenarioNames.extractFeatureName(featureUri);
+    }
+
+    @Benchmark
+    public String formatFeatureName() {
+        return ScenarioNames.formatFeatureName(fileName);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String formatFeatureNameContended() {
+        return ScenarioNames.formatFeatureName(fileName);
+    }
+
+    @Benchmark
+    public String extractStepText() {
+        return ScenarioNames.extractStepText(scenarioString);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String extractStepTextContended() {
+        return ScenarioNames.extractStepText(scenarioString);
+    }
+}
@@ -3,89 +3,203 @@ package com.leumit.config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * ConfigManager - Singleton class to manage configuration properties
+ * Properties are loaded once from the classpath (config/config.properties, then config/&lt;env&gt;.properties)
+ * and overridden by system properties, into an immutable {@link ConfigSnapshot} published through a
+ * volatile reference, so reads take no lock and typed reads parse nothing.
+ * With configReload=true, changes to configReloadFile are laid over the classpath configuration and
+ * published as a new snapshot. Values that classes keep after reading them once are not reloaded,
+ * unless they register a reload listener.
  */
 public class ConfigManager {
     private static final Logger logger = LoggerFactory.getLogger(ConfigManager.class);
-    private static ConfigManager instance;
-    private final Properties properties;
+    private static final String CONFIG_DIRECTORY = "config/";
+    private final List<Consumer<ConfigSnapshot>> reloadListeners = new CopyOnWriteArrayList<>();
+    private volatile ConfigSnapshot snapshot;
 
     private ConfigManager() {
-        properties = new Properties();
-        loadDefaultProperties();
-        
-        // Load environment-specific properties if environment is set
-        String env = System.getProperty("env");
-        if (env != null && !env.isEmpty()) {
-            loadEnvironmentProperties(env);
+        snapshot = new ConfigSnapshot(loadProperties(null), 1);
+        logger.info("Loaded {} configuration properties", snapshot.size());
+
+        if (getBooleanProperty("configReload", false)) {
+            Path reloadFile = Paths.get(getProperty("configReloadFile", "src/test/resources/config/config.properties"));
+            // The reload file applies from the start, not only after its first change
+            snapshot = new ConfigSnapshot(loadProperties(reloadFile), 1);
+            startWatching(reloadFile);
         }
-        
-        // Override with system properties
-        loadSystemProperties();
+    }
+
+    /**
+     * Holder of the instance, created on first use by the class loader without locking
+     */
+    private static class Holder {
+        private static final ConfigManager INSTANCE = new ConfigManager();
     }
 
     /**
      * Get the singleton instance of ConfigManager
      * @return ConfigManager instance
      */
-    public static synchronized ConfigManager getInstance() {
-        if (instance == null) {
-            instance = new ConfigManager();
-        }
-        return instance;
+    public static ConfigManager getInstance() {
+        return Holder.INSTANCE;
     }
 
     /**
-     * Load default properties from config.properties
+     * Get the current configuration snapshot
+     * Read related properties from one snapshot to get consistent values across a reload
+     * @return Current snapshot
      */
-    private void loadDefaultProperties() {
-        loadPropertiesFromFile("src/test/resources/config/config.properties");
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
     }
 
     /**
-     * Load environment-specific properties
-     * @param env Environment name
+     * Register a listener called with the new snapshot after every reload
+     * @param listener Reload listener
      */
-    private void loadEnvironmentProperties(String env) {
-        String envConfigPath = "src/test/resources/config/" + env + ".properties";
-        loadPropertiesFromFile(envConfigPath);
+    public void addReloadListener(Consumer<ConfigSnapshot> listener) {
+        reloadListeners.add(listener);
+    }
+
+    /**
+     * Build the layered properties: classpath defaults, environment, reload file, system properties
+     * @param reloadFile Properties file laid over the classpath configuration, or null
+     * @return Merged properties
+     */
+    private Properties loadProperties(Path reloadFile) {
+        Properties properties = new Properties();
+        loadPropertiesFromClasspath(properties, CONFIG_DIRECTORY + "config.properties");
+
+        // Load environment-specific properties if environment is set
+        String env = System.getProperty("env");
+        if (env != null && !env.isEmpty()) {
+            loadPropertiesFromClasspath(properties, CONFIG_DIRECTORY + env + ".properties");
+        }
+
+        if (reloadFile != null) {
+            loadPropertiesFromFile(properties, reloadFile);
+        }
+
+        // Override with system properties
+        Properties systemProperties = System.getProperties();
+        for (String name : systemProperties.stringPropertyNames()) {
+            properties.setProperty(name, systemProperties.getProperty(name));
+        }
+        return properties;
+    }
+
+    /**
+     * Load properties from a classpath resource
+     * @param properties Properties to load into
+     * @param resource Resource name
+     */
+    private void loadPropertiesFromClasspath(Properties properties, String resource) {
+        try (InputStream input = ConfigManager.class.getClassLoader().getResourceAsStream(resource)) {
+            if (input == null) {
+                logger.warn("Properties file not found on classpath: {}", resource);
+                return;
+            }
+            properties.load(input);
+            logger.info("Loaded properties from: classpath:{}", resource);
+        } catch (IOException e) {
+            logger.error("Error loading properties from: classpath:{}", resource, e);
+        }
     }
 
     /**
      * Load properties from a file
-     * @param filePath Path to properties file
+     * @param properties Properties to load into
+     * @param path Path to properties file
      */
-    private void loadPropertiesFromFile(String filePath) {
-        Path path = Paths.get(filePath);
+    private void loadPropertiesFromFile(Properties properties, Path path) {
         if (!Files.exists(path)) {
-            logger.warn("Properties file not found: {}", filePath);
+            logger.warn("Properties file not found: {}", path);
             return;
         }
-
-        try (InputStream input = new FileInputStream(filePath)) {
+        try (InputStream input = Files.newInputStream(path)) {
             properties.load(input);
-            logger.info("Loaded properties from: {}", filePath);
         } catch (IOException e) {
-            logger.error("Error loading properties from: {}", filePath, e);
+            logger.error("Error loading properties from: {}", path, e);
         }
     }
 
     /**
-     * Override properties with system properties
+     * Watch a properties file and publish a new snapshot whenever it changes
+     * @param file Properties file to watch
      */
-    private void loadSystemProperties() {
-        Properties systemProperties = System.getProperties();
-        for (String name : systemProperties.stringPropertyNames()) {
-            properties.setProperty(name, systemProperties.getProperty(name));
+    private void startWatching(Path file) {
+        Path directory = file.toAbsolutePath().getParent();
+        WatchService watchService;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.error("Failed to watch configuration file: {}", file, e);
+            return;
+        }
+        Thread watcher = new Thread(() -> watch(watchService, file), "config-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        logger.info("Reloading configuration when {} changes", file);
+    }
+
+    private void watch(WatchService watchService, Path file) {
+        Path fileName = file.getFileName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= fileName.equals(event.context());
+                }
+                key.reset();
+                if (changed) {
+                    // Editors write in several steps, let the file settle before reading it
+                    Thread.sleep(100);
+                    WatchKey pending;
+                    while ((pending = watchService.poll()) != null) {
+                        pending.pollEvents();
+                        pending.reset();
+                    }
+                    reload(file);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Publish a new snapshot with the reload file laid over the classpath configuration
+     * @param file Changed properties file
+     */
+    private void reload(Path file) {
+        ConfigSnapshot reloaded = new ConfigSnapshot(loadProperties(file), snapshot.getVersion() + 1);
+        snapshot = reloaded;
+        logger.info("Configuration reloaded from {} (version {})", file, reloaded.getVersion());
+        for (Consumer<ConfigSnapshot> listener : reloadListeners) {
+            try {
+                listener.accept(reloaded);
+            } catch (RuntimeException e) {
+                logger.error("Configuration reload listener failed", e);
+            }
         }
     }
 
@@ -95,7 +209,7 @@ public class ConfigManager {
      * @return Property value or null if not found
      */
     public String getProperty(String key) {
-        return properties.getProperty(key);
+        return snapshot.get(key);
     }
 
     /**
@@ -105,7 +219,8 @@ public class ConfigManager {
      * @return Property value or default if not found
      */
     public String getProperty(String key, String defaultValue) {
-        return properties.getProperty(key, defaultValue);
+        String value = snapshot.get(key);
+        return value != null ? value : defaultValue;
     }
 
     /**
@@ -115,16 +230,33 @@ public class ConfigManager {
      * @return Property value as integer or default
      */
     public int getIntProperty(String key, int defaultValue) {
-        String value = getProperty(key);
-        if (value == null) {
-            return defaultValue;
+        ConfigSnapshot current = snapshot;
+        Integer value = current.getInt(key);
+        if (value != null) {
+            return value;
         }
-        try {
-            return Integer.parseInt(value);
-        } catch (NumberFormatException e) {
-            logger.warn("Invalid integer property: {} = {}", key, value);
-            return defaultValue;
+        if (current.contains(key)) {
+            logger.warn("Invalid integer property: {} = {}", key, current.get(key));
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Get a property as a double
+     * @param key Property key
+     * @param defaultValue Default value if property not found or not a valid number
+     * @return Property value as double or default
+     */
+    public double getDoubleProperty(String key, double defaultValue) {
+        ConfigSnapshot current = snapshot;
+        Double value = current.getDouble(key);
+        if (value != null) {
+            return value;
+        }
+        if (current.contains(key)) {
+            logger.warn("Invalid double property: {} = {}", key, current.get(key));
         }
+        return defaultValue;
     }
 
     /**
@@ -134,10 +266,7 @@ public class ConfigManager {
      * @return Property value as boolean or default
      */
     public boolean getBooleanProperty(String key, boolean defaultValue) {
-        String value = getProperty(key);
-        if (value == null) {
-            return defaultValue;
-        }
-        return Boolean.parseBoolean(value);
+        Boolean value = snapshot.getBoolean(key);
+        return value != null ? value : defaultValue;
     }
-} 
\ No newline at end of file
+}
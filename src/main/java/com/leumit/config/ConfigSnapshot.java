@@ -0,0 +1,119 @@
+package com.leumit.config;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * ConfigSnapshot - Immutable view of the configuration at one point in time
+ * Every value is parsed once when the snapshot is built: numeric and boolean properties are kept
+ * next to their text, so typed reads are a map lookup. A snapshot never changes; a reload builds a
+ * new one, which lets callers read several related properties consistently from the same snapshot.
+ */
+public final class ConfigSnapshot {
+    private final Map<String, String> values;
+    private final Map<String, Integer> ints;
+    private final Map<String, Double> doubles;
+    private final Map<String, Boolean> booleans;
+    private final long version;
+    private final Instant loadedAt;
+
+    ConfigSnapshot(Properties properties, long version) {
+        Map<String, String> values = new HashMap<>();
+        Map<String, Integer> ints = new HashMap<>();
+        Map<String, Double> doubles = new HashMap<>();
+        Map<String, Boolean> booleans = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key);
+            values.put(key, value);
+            booleans.put(key, Boolean.parseBoolean(value));
+            try {
+                ints.put(key, Integer.parseInt(value));
+            } catch (NumberFormatException e) {
+                // Not an integer, typed reads of this key fall back to their default
+            }
+            try {
+                doubles.put(key, Double.parseDouble(value));
+            } catch (NumberFormatException e) {
+                // Not a number
+            }
+        }
+        this.values = Collections.unmodifiableMap(values);
+        this.ints = Collections.unmodifiableMap(ints);
+        this.doubles = Collections.unmodifiableMap(doubles);
+        this.booleans = Collections.unmodifiableMap(booleans);
+        this.version = version;
+        this.loadedAt = Instant.now();
+    }
+
+    /**
+     * Get a property value
+     * @param key Property key
+     * @return Property value or null if not found
+     */
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    /**
+     * Check if a property is set
+     * @param key Property key
+     * @return True if the property has a value
+     */
+    public boolean contains(String key) {
+        return values.containsKey(key);
+    }
+
+    /**
+     * Get a pre-parsed integer property
+     * @param key Property key
+     * @return Property value, or null if not found or not a valid integer
+     */
+    public Integer getInt(String key) {
+        return ints.get(key);
+    }
+
+    /**
+     * Get a pre-parsed double property
+     * @param key Property key
+     * @return Property value, or null if not found or not a valid number
+     */
+    public Double getDouble(String key) {
+        return doubles.get(key);
+    }
+
+    /**
+     * Get a pre-parsed boolean property
+     * @param key Property key
+     * @return Property value, or null if not found
+     */
+    public Boolean getBoolean(String key) {
+        return booleans.get(key);
+    }
+
+    /**
+     * All properties of the snapshot
+     * @return Unmodifiable map of property keys to values
+     */
+    public Map<String, String> asMap() {
+        return values;
+    }
+
+    /**
+     * Number of the snapshot, starting at 1 and incremented on every reload
+     * @return Snapshot version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
@@ -1,47 +1,86 @@
 package com.leumit.context;
 
-import com.aventstack.extentreports.ExtentTest;
+import com.leumit.drivers.MobileDevice;
+import com.leumit.pages.mobile.PageSourceCache;
+import com.leumit.performance.PageLoadMetrics;
+import com.leumit.reporting.ReportNode;
+import com.leumit.utils.SoftAssertions;
+import com.microsoft.playwright.Page;
+import io.appium.java_client.AppiumDriver;
 import io.cucumber.java.Scenario;
 
 import java.util.HashMap;
 import java.util.Map;
 
 /**
- * TestContext - Thread-safe singleton class for managing test data
- * Uses ThreadLocal to maintain thread safety for parallel execution
+ * TestContext - State of one running scenario or test
+ * Cucumber's object factory creates one instance per scenario and injects it into the hooks and
+ * step definitions; the hooks bind it to the thread running the scenario and unbind it when the
+ * scenario ends, so nothing is left behind for the next scenario on a pooled or virtual thread.
+ * A scenario runs on one thread from its first hook to its last, so the fields need no locking.
+ * Code running outside a scenario (TestNG tests, benchmarks) gets a context owned by its thread.
  */
 public class TestContext {
-    private static final ThreadLocal<TestContext> threadLocalInstance = new ThreadLocal<>();
-    private final ThreadLocal<Map<String, Object>> testData = ThreadLocal.withInitial(HashMap::new);
-    private final ThreadLocal<Scenario> scenario = new ThreadLocal<>();
-    private final ThreadLocal<ExtentTest> extentTest = new ThreadLocal<>();
-    private final ThreadLocal<String> platform = ThreadLocal.withInitial(() -> "web");
-    private final ThreadLocal<String> deviceName = new ThreadLocal<>();
+    private static final ThreadLocal<TestContext> boundContext = new ThreadLocal<>();
+    private static final ThreadLocal<TestContext> threadContext = ThreadLocal.withInitial(TestContext::new);
 
-    private TestContext() {
-        // Private constructor to prevent instantiation
+    private final Map<String, Object> testData = new HashMap<>();
+    private Scenario scenario;
+    private ReportNode reportNode;
+    private String platform = "web";
+    private String deviceName;
+    private MobileDevice device;
+    private PageSourceCache pageSourceCache;
+    private SoftAssertions softAssertions;
+    private PageLoadMetrics pageLoadMetrics;
+    private Page page;
+    private AppiumDriver mobileDriver;
+
+    /**
+     * Create an empty context; scenario contexts are created by the Cucumber object factory
+     */
+    public TestContext() {
+    }
+
+    /**
+     * Get the context of the scenario running on this thread
+     * @return Bound scenario context, or the thread's own context outside of a scenario
+     */
+    public static TestContext getInstance() {
+        TestContext context = boundContext.get();
+        return context != null ? context : threadContext.get();
     }
 
     /**
-     * Get the singleton instance of TestContext
-     * @return TestContext instance for the current thread
+     * Make a scenario context the current one for this thread
+     * @param context Context of the starting scenario
      */
-    public static synchronized TestContext getInstance() {
-        if (threadLocalInstance.get() == null) {
-            threadLocalInstance.set(new TestContext());
-        }
-        return threadLocalInstance.get();
+    public static void bind(TestContext context) {
+        boundContext.set(context);
     }
 
     /**
-     * Clear all data for the current thread
+     * Remove the scenario context from this thread
+     */
+    public static void unbind() {
+        boundContext.remove();
+    }
+
+    /**
+     * Clear all data of this context
      */
     public void reset() {
-        testData.get().clear();
-        scenario.remove();
-        extentTest.remove();
-        platform.remove();
-        deviceName.remove();
+        testData.clear();
+        scenario = null;
+        reportNode = null;
+        platform = "web";
+        deviceName = null;
+        device = null;
+        pageSourceCache = null;
+        softAssertions = null;
+        pageLoadMetrics = null;
+        page = null;
+        mobileDriver = null;
     }
 
     /**
@@ -49,7 +88,7 @@ public class TestContext {
      * @param scenario Cucumber scenario
      */
     public void setScenario(Scenario scenario) {
-        this.scenario.set(scenario);
+        this.scenario = scenario;
     }
 
     /**
@@ -57,23 +96,55 @@ public class TestContext {
      * @return Current Cucumber scenario
      */
     public Scenario getScenario() {
-        return scenario.get();
+        return scenario;
+    }
+
+    /**
+     * Set the report node of the scenario or test
+     * @param node Report node of the running scenario or test
+     */
+    public void setReportNode(ReportNode node) {
+        this.reportNode = node;
     }
 
     /**
-     * Set the ExtentTest instance for current thread
-     * @param test ExtentTest instance
+     * Get the report node of the scenario or test
+     * @return Report node, or null outside of a scenario or test
      */
-    public void setExtentTest(ExtentTest test) {
-        this.extentTest.set(test);
+    public ReportNode getReportNode() {
+        return reportNode;
     }
 
     /**
-     * Get the ExtentTest instance for current thread
-     * @return ExtentTest instance
+     * Set the Playwright page the scenario runs on
+     * @param page Playwright page, or null once released
      */
-    public ExtentTest getExtentTest() {
-        return extentTest.get();
+    public void setPage(Page page) {
+        this.page = page;
+    }
+
+    /**
+     * Get the Playwright page the scenario runs on
+     * @return Playwright page, or null if none was acquired
+     */
+    public Page getPage() {
+        return page;
+    }
+
+    /**
+     * Set the mobile driver of the scenario
+     * @param mobileDriver Appium driver, or null once closed
+     */
+    public void setMobileDriver(AppiumDriver mobileDriver) {
+        this.mobileDriver = mobileDriver;
+    }
+
+    /**
+     * Get the mobile driver of the scenario
+     * @return Appium driver, or null if none was created
+     */
+    public AppiumDriver getMobileDriver() {
+        return mobileDriver;
     }
 
     /**
@@ -81,7 +152,7 @@ public class TestContext {
      * @param platform Platform name
      */
     public void setPlatform(String platform) {
-        this.platform.set(platform);
+        this.platform = platform;
     }
 
     /**
@@ -89,7 +160,7 @@ public class TestContext {
      * @return Current platform (web or mobile)
      */
     public String getPlatform() {
-        return platform.get();
+        return platform;
     }
 
     /**
@@ -97,7 +168,7 @@ public class TestContext {
      * @param deviceName Device name
      */
     public void setDeviceName(String deviceName) {
-        this.deviceName.set(deviceName);
+        this.deviceName = deviceName;
     }
 
     /**
@@ -105,7 +176,71 @@ public class TestContext {
      * @return Device name
      */
     public String getDeviceName() {
-        return deviceName.get();
+        return deviceName;
+    }
+
+    /**
+     * Set the device leased to the scenario
+     * @param device Leased device, or null once released
+     */
+    public void setDevice(MobileDevice device) {
+        this.device = device;
+    }
+
+    /**
+     * Get the device leased to the scenario
+     * @return Leased device, or null if none is leased
+     */
+    public MobileDevice getDevice() {
+        return device;
+    }
+
+    /**
+     * Set the page source cache of the scenario's mobile session
+     * @param pageSourceCache Page source cache
+     */
+    public void setPageSourceCache(PageSourceCache pageSourceCache) {
+        this.pageSourceCache = pageSourceCache;
+    }
+
+    /**
+     * Get the page source cache of the scenario's mobile session
+     * @return Page source cache, or null if none was created
+     */
+    public PageSourceCache getPageSourceCache() {
+        return pageSourceCache;
+    }
+
+    /**
+     * Set the soft assertions of the scenario
+     * @param softAssertions Recorded assertions, or null to fail on the first assertion
+     */
+    public void setSoftAssertions(SoftAssertions softAssertions) {
+        this.softAssertions = softAssertions;
+    }
+
+    /**
+     * Get the soft assertions of the scenario
+     * @return Recorded assertions, or null if soft assertions are not enabled
+     */
+    public SoftAssertions getSoftAssertions() {
+        return softAssertions;
+    }
+
+    /**
+     * Set the metrics of the last page load
+     * @param metrics Page load metrics
+     */
+    public void setPageLoadMetrics(PageLoadMetrics metrics) {
+        this.pageLoadMetrics = metrics;
+    }
+
+    /**
+     * Get the metrics of the last page load
+     * @return Page load metrics or null if none were collected
+     */
+    public PageLoadMetrics getPageLoadMetrics() {
+        return pageLoadMetrics;
     }
 
     /**
@@ -114,7 +249,7 @@ public class TestContext {
      * @param value Data value
      */
     public void setAttribute(String key, Object value) {
-        testData.get().put(key, value);
+        testData.put(key, value);
     }
 
     /**
@@ -125,7 +260,7 @@ public class TestContext {
      */
     @SuppressWarnings("unchecked")
     public <T> T getAttribute(String key) {
-        return (T) testData.get().get(key);
+        return (T) testData.get(key);
     }
 
     /**
@@ -133,6 +268,6 @@ public class TestContext {
      * @param key Data key
      */
     public void removeAttribute(String key) {
-        testData.get().remove(key);
+        testData.remove(key);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package com.leumit.drivers;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.Page;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * BrowserContextPool - Bounded pool of pre-created browser contexts on one long-lived browser
+ * A pool is owned by a single worker thread, as Playwright objects are not thread safe
+ */
+public class BrowserContextPool {
+    private static final Logger logger = LoggerFactory.getLogger(BrowserContextPool.class);
+    private final Browser browser;
+    private final int capacity;
+    private final PoolStats stats;
+    private final Deque<Page> idlePages = new ArrayDeque<>();
+
+    /**
+     * Constructor for BrowserContextPool
+     * @param browser Browser the contexts are created on
+     * @param capacity Maximum number of idle pre-created contexts
+     * @param stats Statistics to record hits, misses and creation latency into
+     */
+    public BrowserContextPool(Browser browser, int capacity, PoolStats stats) {
+        this.browser = browser;
+        this.capacity = Math.max(0, capacity);
+        this.stats = stats;
+    }
+
+    /**
+     * Take a page in a fresh context, pre-created if one is available
+     * @return Page in its own browser context
+     */
+    public Page acquire() {
+        Page page;
+        while ((page = idlePages.pollFirst()) != null) {
+            if (!page.isClosed()) {
+                stats.recordHit();
+                return page;
+            }
+        }
+        stats.recordMiss();
+        return create();
+    }
+
+    /**
+     * Close the context of a page that is no longer needed
+     * Contexts are never handed out twice, so scenarios cannot see each other's state
+     * @param page Page previously returned by acquire
+     */
+    public void release(Page page) {
+        if (page == null) {
+            return;
+        }
+        try {
+            page.context().close();
+            stats.recordClose();
+        } catch (Exception e) {
+            logger.error("Error closing browser context", e);
+        }
+    }
+
+    /**
+     * Pre-create contexts until the pool is full, so the next acquire is a hit
+     */
+    public void replenish() {
+        while (idlePages.size() < capacity && browser.isConnected()) {
+            idlePages.addLast(create());
+        }
+    }
+
+    /**
+     * Close all idle contexts
+     */
+    public void close() {
+        Page page;
+        while ((page = idlePages.pollFirst()) != null) {
+            release(page);
+        }
+    }
+
+    /**
+     * Create a new context with a single page
+     * @return Page in a new context
+     */
+    private Page create() {
+        long start = System.nanoTime();
+        BrowserContext context = DriverFactory.createContext(browser);
+        Page page = DriverFactory.createPage(context);
+        stats.recordCreation(System.nanoTime() - start);
+        return page;
+    }
+}
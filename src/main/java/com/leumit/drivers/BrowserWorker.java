@@ -0,0 +1,134 @@
+package com.leumit.drivers;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * BrowserWorker - One Playwright instance and one long-lived browser owned by a worker thread
+ */
+class BrowserWorker {
+    private static final Logger logger = LoggerFactory.getLogger(BrowserWorker.class);
+    private final String name;
+    private final Playwright playwright;
+    private final Browser browser;
+    private final BrowserContextPool pool;
+    private final List<ProcessHandle> driverProcesses;
+    private Page workerPage;
+
+    /**
+     * Launch the browser for a worker and pre-fill its context pool
+     * @param name Worker name used in logs
+     * @param poolSize Number of pre-created contexts to keep ready
+     * @param stats Shared pool statistics
+     */
+    BrowserWorker(String name, int poolSize, PoolStats stats) {
+        this.name = name;
+        // The Playwright driver is a child process of ours and the browser runs under it,
+        // keep it to kill both if they hang at the end of the run. Playwright starts are serialized,
+        // so the new child is this worker's and never the driver of a worker starting at the same moment
+        DriverFactory.playwrightStartLock.lock();
+        try {
+            Set<ProcessHandle> existingChildren = ProcessHandle.current().children().collect(Collectors.toSet());
+            this.playwright = DriverFactory.createPlaywright();
+            this.driverProcesses = ProcessHandle.current().children()
+                    .filter(process -> !existingChildren.contains(process))
+                    .toList();
+        } finally {
+            DriverFactory.playwrightStartLock.unlock();
+        }
+        this.browser = DriverFactory.createBrowser(playwright);
+        this.pool = new BrowserContextPool(browser, poolSize, stats);
+        this.pool.replenish();
+        logger.info("Started browser worker: {}", name);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Playwright getPlaywright() {
+        return playwright;
+    }
+
+    Browser getBrowser() {
+        return browser;
+    }
+
+    BrowserContextPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Get the page shared by all scenarios on this worker
+     * @return Worker-wide page, created on first use
+     */
+    Page getWorkerPage() {
+        if (workerPage == null || workerPage.isClosed()) {
+            workerPage = pool.acquire();
+        }
+        return workerPage;
+    }
+
+    /**
+     * Close the pool, the browser and the Playwright instance
+     */
+    void close() {
+        closeContexts();
+        closeBrowser();
+        closePlaywright();
+    }
+
+    /**
+     * Close the worker page and the idle contexts of the pool
+     */
+    void closeContexts() {
+        if (workerPage != null) {
+            pool.release(workerPage);
+            workerPage = null;
+        }
+        pool.close();
+    }
+
+    /**
+     * Close the browser with every context still open on it
+     */
+    void closeBrowser() {
+        try {
+            browser.close();
+            logger.info("Closed Browser for worker: {}", name);
+        } catch (Exception e) {
+            logger.error("Error closing Browser for worker: {}", name, e);
+        }
+    }
+
+    /**
+     * Close the Playwright instance and its driver process
+     */
+    void closePlaywright() {
+        try {
+            playwright.close();
+            logger.info("Closed Playwright for worker: {}", name);
+        } catch (Exception e) {
+            logger.error("Error closing Playwright for worker: {}", name, e);
+        }
+    }
+
+    /**
+     * Kill the Playwright driver process and the browser processes under it
+     * Used when closing hangs; threads still blocked on the browser fail once the driver is gone
+     */
+    void forceKill() {
+        for (ProcessHandle process : driverProcesses) {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+        logger.warn("Killed {} driver processes of worker: {}", driverProcesses.size(), name);
+    }
+}
@@ -0,0 +1,175 @@
+package com.leumit.drivers;
+
+import org.openqa.selenium.SessionNotCreatedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DeviceLeaseManager - Hands each scenario a device of its own
+ * Free devices wait in a queue per platform; a scenario blocks until one is free, which costs a
+ * virtual thread nothing. A device on which sessions repeatedly cannot be created is taken out of rotation.
+ * Busy time is kept per device, to report how well the devices were used.
+ */
+public class DeviceLeaseManager {
+    private static final Logger logger = LoggerFactory.getLogger(DeviceLeaseManager.class);
+    private final Map<String, BlockingQueue<MobileDevice>> freeDevices = new ConcurrentHashMap<>();
+    private final Map<MobileDevice, DeviceStats> stats = new LinkedHashMap<>();
+    private final Set<MobileDevice> unhealthy = ConcurrentHashMap.newKeySet();
+    private final int maxStartFailures;
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Constructor for DeviceLeaseManager
+     * @param registry Devices to hand out
+     * @param maxStartFailures Consecutive failures to create a session after which a device is taken out of rotation
+     */
+    public DeviceLeaseManager(DeviceRegistry registry, int maxStartFailures) {
+        this.maxStartFailures = Math.max(1, maxStartFailures);
+        for (MobileDevice device : registry.getDevices()) {
+            freeDevices.computeIfAbsent(device.platform().toLowerCase(), key -> new LinkedBlockingQueue<>()).add(device);
+            stats.put(device, new DeviceStats());
+        }
+    }
+
+    /**
+     * Take a free, healthy device of a platform, waiting until one is released
+     * @param platform android or ios
+     * @return Device leased to the caller until release
+     * @throws IllegalStateException if the platform has no healthy device left
+     */
+    public MobileDevice lease(String platform) throws InterruptedException {
+        String key = platform.toLowerCase();
+        BlockingQueue<MobileDevice> queue = freeDevices.get(key);
+        long waitStart = System.nanoTime();
+        while (true) {
+            if (queue == null || !hasHealthyDevice(key)) {
+                throw new IllegalStateException("No healthy " + key + " device is configured");
+            }
+            MobileDevice device = queue.poll(1, TimeUnit.SECONDS);
+            if (device == null) {
+                continue;
+            }
+            if (unhealthy.contains(device)) {
+                // Out of rotation, it is not put back
+                continue;
+            }
+            DeviceStats deviceStats = stats.get(device);
+            deviceStats.leases.increment();
+            deviceStats.waitNanos.add(System.nanoTime() - waitStart);
+            deviceStats.leasedAt = System.nanoTime();
+            logger.info("Leased device: {}", device);
+            return device;
+        }
+    }
+
+    /**
+     * Hand a device back for the next scenario
+     * @param device Device returned by lease
+     */
+    public void release(MobileDevice device) {
+        DeviceStats deviceStats = stats.get(device);
+        if (deviceStats == null || deviceStats.leasedAt == 0) {
+            return;
+        }
+        deviceStats.busyNanos.add(System.nanoTime() - deviceStats.leasedAt);
+        deviceStats.leasedAt = 0;
+        if (unhealthy.contains(device)) {
+            logger.warn("Device {} is unhealthy and stays out of rotation", device);
+            return;
+        }
+        freeDevices.get(device.platform().toLowerCase()).add(device);
+    }
+
+    /**
+     * Take a device out of rotation, e.g. because no session could be started on it
+     * @param device Device to stop handing out
+     */
+    public void markUnhealthy(MobileDevice device) {
+        if (unhealthy.add(device)) {
+            logger.warn("Taking device {} out of rotation", device);
+        }
+    }
+
+    /**
+     * Count a session that could not be started on a device
+     * Only failures to create the session count towards taking the device out of rotation; other
+     * errors, e.g. an unreachable Appium server, say nothing about the device.
+     * @param device Device the session was started on
+     * @param cause Why the session did not start
+     * @return Whether the device was taken out of rotation
+     */
+    public boolean recordStartFailure(MobileDevice device, RuntimeException cause) {
+        DeviceStats deviceStats = stats.get(device);
+        if (deviceStats == null) {
+            return false;
+        }
+        deviceStats.startFailures.increment();
+        if (!(cause instanceof SessionNotCreatedException)) {
+            return false;
+        }
+        int consecutive = deviceStats.consecutiveStartFailures.incrementAndGet();
+        logger.warn("Session creation failed on device {} ({} of {} in a row)", device, consecutive, maxStartFailures);
+        if (consecutive < maxStartFailures) {
+            return false;
+        }
+        markUnhealthy(device);
+        return true;
+    }
+
+    /**
+     * Note a session started on a device, which ends its run of start failures
+     * @param device Device the session was started on
+     */
+    public void recordStartSuccess(MobileDevice device) {
+        DeviceStats deviceStats = stats.get(device);
+        if (deviceStats != null) {
+            deviceStats.consecutiveStartFailures.set(0);
+        }
+    }
+
+    private boolean hasHealthyDevice(String platform) {
+        return stats.keySet().stream()
+                .anyMatch(device -> device.platform().equalsIgnoreCase(platform) && !unhealthy.contains(device));
+    }
+
+    /**
+     * Describe the use of every device: leases, busy share of the run, mean wait for the device and start failures
+     * @return One line per device
+     */
+    public List<String> getUtilization() {
+        long elapsed = Math.max(1, System.nanoTime() - startNanos);
+        return stats.entrySet().stream().map(entry -> {
+            DeviceStats deviceStats = entry.getValue();
+            long leases = deviceStats.leases.sum();
+            long busy = deviceStats.busyNanos.sum();
+            return String.format("%s: leases=%d, utilization=%.0f%%, avgWait=%dms, startFailures=%d%s",
+                    entry.getKey(), leases, 100.0 * busy / elapsed,
+                    leases == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(deviceStats.waitNanos.sum() / leases),
+                    deviceStats.startFailures.sum(),
+                    unhealthy.contains(entry.getKey()) ? ", unhealthy" : "");
+        }).toList();
+    }
+
+    /**
+     * DeviceStats - Lease counters of one device
+     */
+    private static final class DeviceStats {
+        private final LongAdder leases = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAdder startFailures = new LongAdder();
+        private final AtomicInteger consecutiveStartFailures = new AtomicInteger();
+        private volatile long leasedAt;
+    }
+}
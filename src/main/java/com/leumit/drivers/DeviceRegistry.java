@@ -0,0 +1,99 @@
+package com.leumit.drivers;
+
+import com.leumit.config.ConfigManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DeviceRegistry - The Android and iOS devices configured for the run
+ * Read from mobileDevices; without it, one device per platform is built from the
+ * deviceNameAndroid, deviceNameIOS and appiumUrl settings.
+ */
+public class DeviceRegistry {
+    private final List<MobileDevice> devices;
+
+    /**
+     * Constructor for DeviceRegistry
+     * @param devices Configured devices
+     */
+    public DeviceRegistry(List<MobileDevice> devices) {
+        this.devices = List.copyOf(devices);
+    }
+
+    /**
+     * Build the registry from the configuration
+     * @param config Configuration to read
+     * @return Registry of the configured devices
+     */
+    public static DeviceRegistry fromConfig(ConfigManager config) {
+        String appiumUrl = config.getProperty("appiumUrl", "http://localhost:4723");
+        List<MobileDevice> devices = parse(config.getProperty("mobileDevices"), appiumUrl);
+        if (devices.isEmpty()) {
+            devices = List.of(
+                    new MobileDevice(config.getProperty("deviceNameAndroid", "Galaxy S24 Emulator"), "android", "", 0, appiumUrl),
+                    new MobileDevice(config.getProperty("deviceNameIOS", "iPhone 14"), "ios", "", 0, appiumUrl));
+        }
+        return new DeviceRegistry(devices);
+    }
+
+    /**
+     * Parse devices, e.g. "Pixel 7:platform=android,udid=emulator-5554,systemPort=8201;iPhone 14:platform=ios"
+     * Keys are platform (android or ios), udid, systemPort and appiumUrl
+     * @param spec Devices separated by ';', each a name and its settings
+     * @param defaultAppiumUrl Appium server of devices that do not name one
+     * @return Devices in the order given
+     */
+    public static List<MobileDevice> parse(String spec, String defaultAppiumUrl) {
+        List<MobileDevice> devices = new ArrayList<>();
+        if (spec == null || spec.isBlank()) {
+            return devices;
+        }
+        for (String entry : spec.split(";")) {
+            int colon = entry.indexOf(':');
+            String name = (colon < 0 ? entry : entry.substring(0, colon)).trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            String platform = "android";
+            String udid = "";
+            int systemPort = 0;
+            String appiumUrl = defaultAppiumUrl;
+            if (colon >= 0) {
+                for (String setting : entry.substring(colon + 1).split(",")) {
+                    String[] pair = setting.split("=", 2);
+                    if (pair.length != 2) {
+                        continue;
+                    }
+                    String value = pair[1].trim();
+                    switch (pair[0].trim()) {
+                        case "platform" -> platform = value.toLowerCase();
+                        case "udid" -> udid = value;
+                        case "systemPort" -> systemPort = Integer.parseInt(value);
+                        case "appiumUrl" -> appiumUrl = value;
+                        default -> throw new IllegalArgumentException("Unknown device setting: " + pair[0]);
+                    }
+                }
+            }
+            devices.add(new MobileDevice(name, platform, udid, systemPort, appiumUrl));
+        }
+        return devices;
+    }
+
+    /**
+     * Get the devices of a platform
+     * @param platform android or ios
+     * @return Devices of the platform, in configuration order
+     */
+    public List<MobileDevice> getDevices(String platform) {
+        return devices.stream().filter(device -> device.platform().equalsIgnoreCase(platform)).toList();
+    }
+
+    /**
+     * Get all configured devices
+     * @return Devices in configuration order
+     */
+    public List<MobileDevice> getDevices() {
+        return devices;
+    }
+}
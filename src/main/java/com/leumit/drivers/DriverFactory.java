@@ -1,7 +1,10 @@
 package com.leumit.drivers;
 
 import com.leumit.config.ConfigManager;
+import com.leumit.network.NetworkRouter;
+import com.leumit.performance.PageMetricsCollector;
 import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
 import com.microsoft.playwright.BrowserType;
 import com.microsoft.playwright.Page;
 import com.microsoft.playwright.Playwright;
@@ -18,6 +21,7 @@ import java.net.URL;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * DriverFactory - Factory class to create browser and mobile drivers
@@ -25,6 +29,22 @@ import java.util.Map;
 public class DriverFactory {
     private static final Logger logger = LoggerFactory.getLogger(DriverFactory.class);
     private static final ConfigManager config = ConfigManager.getInstance();
+    // Held while a Playwright driver process starts; BrowserWorker tells its driver process apart under it
+    static final ReentrantLock playwrightStartLock = new ReentrantLock();
+
+    /**
+     * Create a Playwright instance, starting its driver process
+     * Starts are serialized, so the child processes appearing during a start belong to that instance
+     * @return Playwright instance
+     */
+    public static Playwright createPlaywright() {
+        playwrightStartLock.lock();
+        try {
+            return Playwright.create();
+        } finally {
+            playwrightStartLock.unlock();
+        }
+    }
 
     /**
      * Create a Playwright browser instance
@@ -47,8 +67,17 @@ public class DriverFactory {
      * @return Playwright browser instance
      */
     public static Browser createBrowser(Playwright playwright) {
+        return createBrowser(playwright, config.getBooleanProperty("headless", false));
+    }
+    
+    /**
+     * Create a Playwright browser instance with an explicit headless mode
+     * @param playwright Playwright instance to use
+     * @param headless Whether to run the browser without a window
+     * @return Playwright browser instance
+     */
+    public static Browser createBrowser(Playwright playwright, boolean headless) {
         String browserName = config.getProperty("browser", "chrome").toLowerCase();
-        boolean headless = config.getBooleanProperty("headless", false);
         
         logger.info("Creating {} browser, headless: {}", browserName, headless);
         
@@ -77,30 +106,91 @@ public class DriverFactory {
         
         Page page = browser.newPage();
         page.setDefaultTimeout(timeout);
+        page.addInitScript(PageMetricsCollector.INIT_SCRIPT);
+        NetworkRouter.install(page);
         
         logger.info("Created Playwright page with timeout: {}ms", timeout);
         return page;
     }
 
+    /**
+     * Create an isolated Playwright BrowserContext
+     * @param browser Playwright browser instance
+     * @return New browser context
+     */
+    public static BrowserContext createContext(Browser browser) {
+        return createContext(browser, new Browser.NewContextOptions());
+    }
+
+    /**
+     * Create an isolated Playwright BrowserContext with options, e.g. HAR recording
+     * @param browser Playwright browser instance
+     * @param options Context options
+     * @return New browser context
+     */
+    public static BrowserContext createContext(Browser browser, Browser.NewContextOptions options) {
+        int timeout = config.getIntProperty("timeout", 30) * 1000;
+        
+        BrowserContext context = browser.newContext(options);
+        context.setDefaultTimeout(timeout);
+        
+        // Observe Web Vitals from document start in every page of the context
+        context.addInitScript(PageMetricsCollector.INIT_SCRIPT);
+        
+        logger.debug("Created Playwright context with timeout: {}ms", timeout);
+        return context;
+    }
+    
+    /**
+     * Create a Playwright Page inside an existing context
+     * @param context Playwright browser context
+     * @return Playwright Page
+     */
+    public static Page createPage(BrowserContext context) {
+        int timeout = config.getIntProperty("timeout", 30) * 1000;
+        
+        Page page = context.newPage();
+        page.setDefaultTimeout(timeout);
+        NetworkRouter.install(page);
+        
+        logger.debug("Created Playwright page in context with timeout: {}ms", timeout);
+        return page;
+    }
+
     /**
      * Create an Appium driver for Android
      * @return AndroidDriver instance
      */
     public static AndroidDriver createAndroidDriver() {
+        return createAndroidDriver(DeviceRegistry.fromConfig(config).getDevices("android").get(0));
+    }
+
+    /**
+     * Create an Appium driver for an Android device
+     * @param device Device to start the session on
+     * @return AndroidDriver instance
+     */
+    public static AndroidDriver createAndroidDriver(MobileDevice device) {
         try {
-            String appiumUrl = config.getProperty("appiumUrl", "http://localhost:4723");
-            String deviceName = config.getProperty("deviceNameAndroid", "Galaxy S24 Emulator");
             String appPackage = config.getProperty("androidAppPackage");
             String appActivity = config.getProperty("androidAppActivity");
             
             UiAutomator2Options options = new UiAutomator2Options()
-                    .setDeviceName(deviceName)
+                    .setDeviceName(device.name())
                     .setAppPackage(appPackage)
                     .setAppActivity(appActivity)
+                    .setNoReset(config.getBooleanProperty("noReset", false))
                     .setNewCommandTimeout(Duration.ofSeconds(60));
+            // Sessions on one server need their own device and system port
+            if (!device.udid().isEmpty()) {
+                options.setUdid(device.udid());
+            }
+            if (device.systemPort() > 0) {
+                options.setSystemPort(device.systemPort());
+            }
             
-            logger.info("Creating Android driver for device: {}, package: {}", deviceName, appPackage);
-            return new AndroidDriver(new URL(appiumUrl), options);
+            logger.info("Creating Android driver for device: {}, package: {}", device, appPackage);
+            return new AndroidDriver(new URL(device.appiumUrl()), options);
         } catch (Exception e) {
             logger.error("Failed to create Android driver", e);
             throw new RuntimeException("Failed to create Android driver", e);
@@ -112,18 +202,33 @@ public class DriverFactory {
      * @return IOSDriver instance
      */
     public static IOSDriver createIOSDriver() {
+        return createIOSDriver(DeviceRegistry.fromConfig(config).getDevices("ios").get(0));
+    }
+
+    /**
+     * Create an Appium driver for an iOS device
+     * @param device Device to start the session on
+     * @return IOSDriver instance
+     */
+    public static IOSDriver createIOSDriver(MobileDevice device) {
         try {
-            String appiumUrl = config.getProperty("appiumUrl", "http://localhost:4723");
-            String deviceName = config.getProperty("deviceNameIOS", "iPhone 14");
             String bundleId = config.getProperty("iosAppBundleId");
             
             XCUITestOptions options = new XCUITestOptions()
-                    .setDeviceName(deviceName)
+                    .setDeviceName(device.name())
                     .setBundleId(bundleId)
+                    .setNoReset(config.getBooleanProperty("noReset", false))
                     .setNewCommandTimeout(Duration.ofSeconds(60));
+            // Sessions on one server need their own device and WebDriverAgent port
+            if (!device.udid().isEmpty()) {
+                options.setUdid(device.udid());
+            }
+            if (device.systemPort() > 0) {
+                options.setWdaLocalPort(device.systemPort());
+            }
             
-            logger.info("Creating iOS driver for device: {}, bundleId: {}", deviceName, bundleId);
-            return new IOSDriver(new URL(appiumUrl), options);
+            logger.info("Creating iOS driver for device: {}, bundleId: {}", device, bundleId);
+            return new IOSDriver(new URL(device.appiumUrl()), options);
         } catch (Exception e) {
             logger.error("Failed to create iOS driver", e);
             throw new RuntimeException("Failed to create iOS driver", e);
@@ -142,4 +247,13 @@ public class DriverFactory {
             return createAndroidDriver();
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Create an Appium driver for a leased device
+     * @param device Device to start the session on
+     * @return AppiumDriver instance
+     */
+    public static AppiumDriver createMobileDriver(MobileDevice device) {
+        return device.isIos() ? createIOSDriver(device) : createAndroidDriver(device);
+    }
+}
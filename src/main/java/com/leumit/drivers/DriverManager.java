@@ -1,239 +1,510 @@
 package com.leumit.drivers;
 
+import com.leumit.config.ConfigManager;
 import com.leumit.context.TestContext;
+import com.leumit.network.HarArchive;
 import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
 import com.microsoft.playwright.Page;
 import com.microsoft.playwright.Playwright;
 import io.appium.java_client.AppiumDriver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 
 /**
  * DriverManager - Manages browser and mobile drivers with thread safety
+ * Each worker thread owns one long-lived browser; scenarios get pooled browser contexts on it.
+ * Short-lived scenario threads hand their browser back with releaseWorker for the next thread to take.
+ * The page and mobile driver of a scenario live in its TestContext, so lookups take no lock.
  */
 public class DriverManager {
     private static final Logger logger = LoggerFactory.getLogger(DriverManager.class);
-    private static final ThreadLocal<Playwright> playwrightThreadLocal = new ThreadLocal<>();
-    private static final ThreadLocal<Browser> browserThreadLocal = new ThreadLocal<>();
-    private static final ThreadLocal<Page> pageThreadLocal = new ThreadLocal<>();
-    private static final ThreadLocal<AppiumDriver> mobileDriverThreadLocal = new ThreadLocal<>();
-    private static final ConcurrentHashMap<Long, Boolean> initializedDrivers = new ConcurrentHashMap<>();
-    
-    // Store browsers for each feature
-    private static final Map<String, Browser> featureBrowsers = new ConcurrentHashMap<>();
-    private static final Map<String, Page> featurePages = new ConcurrentHashMap<>();
-    private static final Map<String, Playwright> featurePlaywrights = new ConcurrentHashMap<>();
+    private static final ThreadLocal<BrowserWorker> workerThreadLocal = new ThreadLocal<>();
+    private static final ThreadLocal<String> featureThreadLocal = new ThreadLocal<>();
+
+    // All live browser workers, so they can be closed at the end of the run
+    private static final Set<BrowserWorker> workers = ConcurrentHashMap.newKeySet();
+
+    // Workers handed back by finished scenario threads, ready for the next one
+    private static final Deque<BrowserWorker> idleWorkers = new ConcurrentLinkedDeque<>();
+
+    // Store the shared page for each feature when contexts are isolated per feature
+    // Sessions are registered before their page exists, so creating or closing one never blocks other features
+    private static final Map<String, FeatureSession> featureSessions = new ConcurrentHashMap<>();
+
+    // Pool configuration and statistics shared by all workers
+    // HAR archives are recorded and replayed per feature, which needs a context per feature
+    private static final IsolationLevel isolationLevel = HarArchive.isEnabled()
+            ? IsolationLevel.FEATURE
+            : IsolationLevel.fromConfig(ConfigManager.getInstance().getProperty("browserIsolation"));
+    private static final int contextPoolSize = ConfigManager.getInstance().getIntProperty("contextPoolSize", 1);
+    private static final PoolStats poolStats = new PoolStats();
+    private static final TeardownStats teardownStats = new TeardownStats();
+    private static final int FEATURE_PAGE_ATTEMPTS = 3;
+
+    // Mobile sessions still open, quit at the end of the run if a scenario thread left one behind
+    private static final Set<AppiumDriver> mobileDrivers = ConcurrentHashMap.newKeySet();
+
+    // Every mobile scenario leases a device of its own from the configured devices; set by the first lease
+    private static volatile boolean devicesLeased;
+
+    /**
+     * Holder of the device leases, created on the first lease so web runs never read the device configuration
+     */
+    private static class DeviceLeases {
+        private static final DeviceLeaseManager INSTANCE =
+                new DeviceLeaseManager(DeviceRegistry.fromConfig(ConfigManager.getInstance()),
+                        ConfigManager.getInstance().getIntProperty("deviceMaxStartFailures", 3));
+    }
+
+    // Appium sessions kept alive across scenarios, the app is reset in between
+    private static final boolean mobileSessionPooling =
+            ConfigManager.getInstance().getBooleanProperty("mobileSessionPooling", true);
+    private static final MobileSessionPool mobileSessionPool = new MobileSessionPool(
+            DriverFactory::createMobileDriver,
+            DriverManager::quitMobileDriver,
+            DriverManager::getAppId,
+            MobileSessionPool.ResetMode.fromConfig(ConfigManager.getInstance().getProperty("mobileResetMode"),
+                    ConfigManager.getInstance().getBooleanProperty("noReset", false)),
+            ConfigManager.getInstance().getIntProperty("mobileSessionMaxUses", 50));
 
     /**
-     * Initialize the driver for the current thread
+     * Initialize the driver for the current scenario or test
      */
     public static void initializeDriver() {
-        long threadId = Thread.currentThread().getId();
-        if (!initializedDrivers.containsKey(threadId)) {
-            logger.info("Created new Playwright instance for thread: {}", threadId);
-            playwrightThreadLocal.set(Playwright.create());
-            browserThreadLocal.set(DriverFactory.createBrowser());
-            pageThreadLocal.set(DriverFactory.createPage(browserThreadLocal.get()));
-            initializedDrivers.put(threadId, true);
+        TestContext context = TestContext.getInstance();
+        if (context.getPage() == null) {
+            logger.info("Acquiring pooled page for thread: {}", Thread.currentThread().getId());
+            context.setPage(getWorker().getPool().acquire());
         }
     }
-    
+
     /**
      * Initialize the driver for a specific feature
      * @param featureUri The feature URI to initialize a driver for
-     * @return true if a new browser was initialized, false if one already existed
-     */
-    public static synchronized boolean initializeDriverForFeature(String featureUri) {
-        if (!featureBrowsers.containsKey(featureUri)) {
-            Playwright playwright = Playwright.create();
-            featurePlaywrights.put(featureUri, playwright);
-            
-            Browser browser = DriverFactory.createBrowser(playwright);
-            featureBrowsers.put(featureUri, browser);
-            
-            Page page = DriverFactory.createPage(browser);
-            featurePages.put(featureUri, page);
-            
-            logger.info("Initialized new browser for feature: {}", featureUri);
-            return true;
+     * @return true if a new context was initialized, false if one already existed
+     */
+    public static boolean initializeDriverForFeature(String featureUri) {
+        if (featureSessions.containsKey(featureUri)) {
+            logger.info("Reusing existing context for feature: {}", featureUri);
+            return false;
+        }
+        // Features run whole on one worker, so the worker's previous feature is done
+        String previousFeature = featureThreadLocal.get();
+        if (previousFeature != null && !previousFeature.equals(featureUri)) {
+            closeBrowserForFeature(previousFeature);
+        }
+        // Unlike computeIfAbsent, the map is not locked while the context is created
+        FeatureSession session = new FeatureSession(featureUri);
+        if (featureSessions.putIfAbsent(featureUri, session) != null) {
+            logger.info("Reusing existing context for feature: {}", featureUri);
+            return false;
+        }
+        featureThreadLocal.set(featureUri);
+        try {
+            if (!session.open(() -> createFeaturePage(featureUri))) {
+                // Closed by another thread while it was being created, that thread closes the page
+                return false;
+            }
+        } catch (RuntimeException e) {
+            featureSessions.remove(featureUri, session);
+            throw e;
+        }
+        logger.info("Initialized new context for feature: {}", featureUri);
+        return true;
+    }
+
+    /**
+     * Create the page of a feature, recording or replaying its HAR archive if configured
+     * @param featureUri The feature URI
+     * @return Page in a context of its own
+     */
+    private static Page createFeaturePage(String featureUri) {
+        BrowserWorker worker = getWorker();
+        switch (HarArchive.getMode()) {
+            case RECORD -> {
+                // Recording contexts cannot come from the pool, the archive is written when the context closes
+                BrowserContext context = DriverFactory.createContext(worker.getBrowser(),
+                        HarArchive.recordingOptions(featureUri));
+                return DriverFactory.createPage(context);
+            }
+            case REPLAY -> {
+                Page page = worker.getPool().acquire();
+                HarArchive.replay(page, featureUri);
+                return page;
+            }
+            default -> {
+                return worker.getPool().acquire();
+            }
+        }
+    }
+
+    /**
+     * Acquire the page a scenario should run on, according to the configured isolation level
+     * Only touches the calling thread's worker, so no global lock is needed
+     * @param featureUri The feature URI of the scenario
+     * @return The Page instance for the scenario
+     */
+    public static Page acquirePageForScenario(String featureUri) {
+        Page page = switch (isolationLevel) {
+            case SCENARIO -> getWorker().getPool().acquire();
+            case FEATURE -> awaitFeaturePage(featureUri);
+            case WORKER -> getWorker().getWorkerPage();
+        };
+        TestContext.getInstance().setPage(page);
+        logger.info("Acquired {}-isolated page for feature: {}", isolationLevel.name().toLowerCase(), featureUri);
+        return page;
+    }
+
+    /**
+     * Get the page of a feature, creating its session if there is none
+     * A session found while another thread closes it, or fails to create its page, has no page;
+     * it leaves the registry right after, so the next attempt registers a new session
+     * @param featureUri The feature URI
+     * @return The open page of the feature
+     * @throws IllegalStateException if no attempt found an open page
+     */
+    private static Page awaitFeaturePage(String featureUri) {
+        for (int attempt = 1; attempt <= FEATURE_PAGE_ATTEMPTS; attempt++) {
+            initializeDriverForFeature(featureUri);
+            FeatureSession session = featureSessions.get(featureUri);
+            Page page = session != null ? session.awaitPage() : null;
+            if (page != null) {
+                return page;
+            }
+            logger.warn("Feature session closed while acquiring its page, attempt {} of {}: {}",
+                    attempt, FEATURE_PAGE_ATTEMPTS, featureUri);
+            Thread.yield();
         }
-        logger.info("Reusing existing browser for feature: {}", featureUri);
-        return false;
+        throw new IllegalStateException("No open page for feature after " + FEATURE_PAGE_ATTEMPTS
+                + " attempts: " + featureUri);
     }
-    
+
+    /**
+     * Release the page of a finished scenario
+     * Scenario-isolated contexts are closed and the pool is refilled for the next scenario
+     * @param featureUri The feature URI of the scenario
+     */
+    public static void releasePageForScenario(String featureUri) {
+        TestContext context = TestContext.getInstance();
+        Page page = context.getPage();
+        context.setPage(null);
+        if (isolationLevel == IsolationLevel.SCENARIO && page != null) {
+            BrowserWorker worker = workerThreadLocal.get();
+            if (worker != null) {
+                worker.getPool().release(page);
+                worker.getPool().replenish();
+            }
+        }
+        logger.debug("Released page for feature: {}", featureUri);
+    }
+
+    /**
+     * Take a page in a fresh context on the current worker, whatever the isolation level
+     * Used for repeated measurements that must not share cache or cookies with the scenario
+     * @return Page in its own browser context, to be handed back with releaseFreshPage
+     */
+    public static Page acquireFreshPage() {
+        return getWorker().getPool().acquire();
+    }
+
+    /**
+     * Close a page taken with acquireFreshPage and refill the pool
+     * @param page Page to release
+     */
+    public static void releaseFreshPage(Page page) {
+        BrowserWorker worker = getWorker();
+        worker.getPool().release(page);
+        worker.getPool().replenish();
+    }
+
     /**
      * Get the page for a specific feature
      * @param featureUri The feature URI
-     * @return The Page instance for the feature
+     * @return The Page instance for the feature, or null if contexts are not isolated per feature
      */
-    public static synchronized Page getPageForFeature(String featureUri) {
-        return featurePages.get(featureUri);
+    public static Page getPageForFeature(String featureUri) {
+        FeatureSession session = featureSessions.get(featureUri);
+        return session != null ? session.getPage() : null;
     }
-    
+
     /**
      * Get the browser for a specific feature
      * @param featureUri The feature URI
-     * @return The Browser instance for the feature 
+     * @return The Browser instance for the feature
      */
-    public static synchronized Browser getBrowserForFeature(String featureUri) {
-        return featureBrowsers.get(featureUri);
+    public static Browser getBrowserForFeature(String featureUri) {
+        Page page = getPageForFeature(featureUri);
+        return page != null ? page.context().browser() : null;
     }
-    
+
     /**
      * Check if the feature has a browser initialized
      * @param featureUri The feature URI
      * @return true if the feature has a browser initialized
      */
-    public static synchronized boolean hasFeatureBrowser(String featureUri) {
-        return featureBrowsers.containsKey(featureUri);
+    public static boolean hasFeatureBrowser(String featureUri) {
+        return getPageForFeature(featureUri) != null;
     }
 
     /**
-     * Get or create a new Playwright Page for web testing
+     * Get the Playwright Page of the current scenario
      * @return Playwright Page
      */
-    public static synchronized Page getPage() {
-        return pageThreadLocal.get();
+    public static Page getPage() {
+        return TestContext.getInstance().getPage();
     }
 
     /**
-     * Get or create a new Browser for web testing
+     * Get the Browser owned by the current worker
      * @return Playwright Browser
      */
-    public static synchronized Browser getBrowser() {
-        return browserThreadLocal.get();
+    public static Browser getBrowser() {
+        BrowserWorker worker = workerThreadLocal.get();
+        return worker != null ? worker.getBrowser() : null;
     }
 
     /**
-     * Get or create a new Playwright instance
+     * Get the Playwright instance owned by the current worker
      * @return Playwright instance
      */
-    public static synchronized Playwright getPlaywright() {
-        return playwrightThreadLocal.get();
+    public static Playwright getPlaywright() {
+        BrowserWorker worker = workerThreadLocal.get();
+        return worker != null ? worker.getPlaywright() : null;
     }
 
     /**
-     * Get or create a new AppiumDriver for mobile testing
-     * @return AppiumDriver instance
+     * Get the configured browser context isolation level
+     * @return Isolation level
      */
-    public static synchronized AppiumDriver getMobileDriver() {
-        if (mobileDriverThreadLocal.get() == null) {
-            String platform = TestContext.getInstance().getPlatform();
-            AppiumDriver driver = DriverFactory.createMobileDriver(platform);
-            mobileDriverThreadLocal.set(driver);
-            logger.info("Created new Mobile Driver for platform: {} and thread: {}", 
-                    platform, Thread.currentThread().getId());
+    public static IsolationLevel getIsolationLevel() {
+        return isolationLevel;
+    }
+
+    /**
+     * Get the browser context pool statistics of all workers
+     * @return Pool statistics
+     */
+    public static PoolStats getPoolStats() {
+        return poolStats;
+    }
+
+    /**
+     * Get the mobile session pool statistics
+     * @return Pool summary with created, reused and recycled sessions
+     */
+    public static String getMobileSessionStats() {
+        return mobileSessionPool.toString();
+    }
+
+    /**
+     * Get the close times of the end-of-run teardown per resource type
+     * @return Teardown statistics
+     */
+    public static TeardownStats getTeardownStats() {
+        return teardownStats;
+    }
+
+    /**
+     * Get the use of every configured device
+     * @return One line per device with its leases, utilization and mean wait
+     */
+    public static List<String> getDeviceUtilization() {
+        return devicesLeased ? DeviceLeases.INSTANCE.getUtilization() : List.of();
+    }
+
+    /**
+     * Lease a device of a platform to the current scenario, waiting until one is free
+     * @param platform android or ios
+     * @return Device leased until releaseDevice
+     */
+    public static MobileDevice leaseDevice(String platform) {
+        try {
+            devicesLeased = true;
+            MobileDevice device = DeviceLeases.INSTANCE.lease(platform);
+            TestContext.getInstance().setDevice(device);
+            return device;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a " + platform + " device", e);
         }
-        return mobileDriverThreadLocal.get();
     }
 
     /**
-     * Closes and quits the current browser for web testing
+     * Hand the device of the current scenario back for the next one
      */
-    public static synchronized void closeBrowser() {
-        Page page = pageThreadLocal.get();
-        if (page != null) {
-            try {
-                page.close();
-                logger.info("Closed Page for thread: {}", Thread.currentThread().getId());
-            } catch (Exception e) {
-                logger.error("Error closing Page", e);
-            } finally {
-                pageThreadLocal.remove();
-            }
+    public static void releaseDevice() {
+        TestContext context = TestContext.getInstance();
+        MobileDevice device = context.getDevice();
+        if (device != null) {
+            context.setDevice(null);
+            DeviceLeases.INSTANCE.release(device);
         }
+    }
 
-        Browser browser = browserThreadLocal.get();
-        if (browser != null) {
+    /**
+     * Get the AppiumDriver of the current scenario, taken from the session pool on first use
+     * A device of the mobilePlatform is leased first if the scenario has none yet
+     * @return AppiumDriver instance
+     */
+    public static AppiumDriver getMobileDriver() {
+        TestContext context = TestContext.getInstance();
+        AppiumDriver driver = context.getMobileDriver();
+        if (driver == null) {
+            MobileDevice device = context.getDevice();
+            if (device == null) {
+                device = leaseDevice(ConfigManager.getInstance().getProperty("mobilePlatform", "android"));
+            }
             try {
-                browser.close();
-                logger.info("Closed Browser for thread: {}", Thread.currentThread().getId());
-            } catch (Exception e) {
-                logger.error("Error closing Browser", e);
-            } finally {
-                browserThreadLocal.remove();
+                driver = mobileSessionPooling
+                        ? mobileSessionPool.acquire(device)
+                        : DriverFactory.createMobileDriver(device);
+            } catch (RuntimeException e) {
+                // The device goes back for the next scenario unless it keeps failing to create sessions
+                boolean retired = DeviceLeases.INSTANCE.recordStartFailure(device, e);
+                logger.warn("Could not start a mobile session on device: {}{}", device,
+                        retired ? ", it is taken out of rotation" : "", e);
+                releaseDevice();
+                throw e;
             }
+            DeviceLeases.INSTANCE.recordStartSuccess(device);
+            context.setMobileDriver(driver);
+            mobileDrivers.add(driver);
+            logger.info("Acquired Mobile Driver on device: {} for thread: {}",
+                    device, Thread.currentThread().getId());
         }
+        return driver;
+    }
 
-        long threadId = Thread.currentThread().getId();
-        initializedDrivers.remove(threadId);
+    /**
+     * Hand the mobile driver of a finished scenario back to the session pool
+     * The app is reset for the next scenario; without pooling the session is quit
+     */
+    public static void releaseMobileDriver() {
+        if (!mobileSessionPooling) {
+            closeMobileDriver();
+            return;
+        }
+        TestContext context = TestContext.getInstance();
+        AppiumDriver driver = context.getMobileDriver();
+        if (driver != null) {
+            context.setMobileDriver(null);
+            mobileSessionPool.release(driver);
+            logger.info("Released Mobile Driver for thread: {}", Thread.currentThread().getId());
+        }
     }
-    
+
     /**
-     * Close the browser for a specific feature
-     * @param featureUri The feature URI
+     * Closes the current page and its browser context
+     * The worker browser stays up for the following scenarios
      */
-    public static synchronized void closeBrowserForFeature(String featureUri) {
-        Page page = featurePages.get(featureUri);
+    public static void closeBrowser() {
+        TestContext context = TestContext.getInstance();
+        Page page = context.getPage();
         if (page != null) {
-            try {
-                page.close();
-                logger.info("Closed Page for feature: {}", featureUri);
-            } catch (Exception e) {
-                logger.error("Error closing Page for feature: {}", featureUri, e);
-            } finally {
-                featurePages.remove(featureUri);
+            for (FeatureSession session : featureSessions.values()) {
+                // The page is closed below, the session only has to leave the registry
+                if (session.holds(page) && session.beginClose()) {
+                    featureSessions.remove(session.getFeatureUri(), session);
+                    session.markClosed();
+                }
+            }
+            BrowserWorker worker = workerThreadLocal.get();
+            if (worker != null) {
+                worker.getPool().release(page);
+            } else {
+                closePage(page);
             }
+            context.setPage(null);
+            logger.info("Closed Page for thread: {}", Thread.currentThread().getId());
         }
+    }
 
-        Browser browser = featureBrowsers.get(featureUri);
-        if (browser != null) {
-            try {
-                browser.close();
-                logger.info("Closed Browser for feature: {}", featureUri);
-            } catch (Exception e) {
-                logger.error("Error closing Browser for feature: {}", featureUri, e);
-            } finally {
-                featureBrowsers.remove(featureUri);
-            }
+    /**
+     * Close the browser context for a specific feature
+     * @param featureUri The feature URI
+     */
+    public static void closeBrowserForFeature(String featureUri) {
+        FeatureSession session = featureSessions.get(featureUri);
+        if (session != null && session.beginClose()) {
+            closeFeatureSession(session);
         }
-        
-        Playwright playwright = featurePlaywrights.get(featureUri);
-        if (playwright != null) {
-            try {
-                playwright.close();
-                logger.info("Closed Playwright for feature: {}", featureUri);
-            } catch (Exception e) {
-                logger.error("Error closing Playwright for feature: {}", featureUri, e);
-            } finally {
-                featurePlaywrights.remove(featureUri);
+    }
+
+    /**
+     * Close the page of a session claimed with beginClose
+     * The session leaves the registry first, so lookups stop finding it while the slow close runs
+     * @param session Feature session to close
+     */
+    private static void closeFeatureSession(FeatureSession session) {
+        featureSessions.remove(session.getFeatureUri(), session);
+        Page page = session.pageToClose();
+        if (page != null) {
+            TestContext context = TestContext.getInstance();
+            if (page == context.getPage()) {
+                context.setPage(null);
             }
+            closePage(page);
+            logger.info("Closed context for feature: {}", session.getFeatureUri());
         }
+        session.markClosed();
     }
 
     /**
-     * Closes Playwright instance completely
+     * Closes the browser and Playwright instance of the current worker
      */
-    public static synchronized void closePlaywright() {
-        Playwright playwright = playwrightThreadLocal.get();
-        if (playwright != null) {
-            try {
-                playwright.close();
-                logger.info("Closed Playwright for thread: {}", Thread.currentThread().getId());
-            } catch (Exception e) {
-                logger.error("Error closing Playwright", e);
-            } finally {
-                playwrightThreadLocal.remove();
-            }
+    public static void closePlaywright() {
+        BrowserWorker worker = workerThreadLocal.get();
+        if (worker != null) {
+            workerThreadLocal.remove();
+            workers.remove(worker);
+            worker.close();
         }
     }
 
     /**
      * Closes and quits the mobile driver
      */
-    public static synchronized void closeMobileDriver() {
-        AppiumDriver driver = mobileDriverThreadLocal.get();
+    public static void closeMobileDriver() {
+        TestContext context = TestContext.getInstance();
+        AppiumDriver driver = context.getMobileDriver();
         if (driver != null) {
             try {
-                driver.quit();
+                mobileSessionPool.remove(driver);
+                quitMobileDriver(driver);
                 logger.info("Closed Mobile Driver for thread: {}", Thread.currentThread().getId());
             } catch (Exception e) {
                 logger.error("Error closing Mobile Driver", e);
             } finally {
-                mobileDriverThreadLocal.remove();
+                context.setMobileDriver(null);
+            }
+        }
+    }
+
+    /**
+     * Hand the browser of the current thread back for the next scenario thread
+     * Closes the context of the thread's feature; the browser stays up, so a virtual thread
+     * per scenario does not launch a browser per scenario
+     */
+    public static void releaseWorker() {
+        String feature = featureThreadLocal.get();
+        if (feature != null) {
+            featureThreadLocal.remove();
+            closeBrowserForFeature(feature);
+        }
+        BrowserWorker worker = workerThreadLocal.get();
+        if (worker != null) {
+            workerThreadLocal.remove();
+            if (workers.contains(worker)) {
+                idleWorkers.offerFirst(worker);
             }
         }
     }
@@ -241,23 +512,121 @@ public class DriverManager {
     /**
      * Closes all drivers for the current thread
      */
-    public static synchronized void closeAllDrivers() {
+    public static void closeAllDrivers() {
         closeBrowser();
+        String feature = featureThreadLocal.get();
+        if (feature != null) {
+            featureThreadLocal.remove();
+            closeBrowserForFeature(feature);
+        }
         closeMobileDriver();
         closePlaywright();
         logger.info("Closed all drivers for thread: {}", Thread.currentThread().getId());
     }
-    
+
+    /**
+     * Close all feature contexts, all worker browsers and any mobile session left open
+     * Everything closes concurrently; a resource that misses teardownTimeoutSeconds is killed
+     */
+    public static void closeAllFeatureBrowsers() {
+        Duration deadline = Duration.ofSeconds(ConfigManager.getInstance().getIntProperty("teardownTimeoutSeconds", 10));
+
+        // Feature contexts go first, a recorded HAR archive is only written when its context closes
+        ShutdownCoordinator contexts = new ShutdownCoordinator(deadline, teardownStats);
+        for (String featureUri : featureSessions.keySet()) {
+            contexts.add(featureUri, null,
+                    new ShutdownCoordinator.Step("context", () -> closeBrowserForFeature(featureUri)));
+        }
+        contexts.closeAll();
+
+        idleWorkers.clear();
+        ShutdownCoordinator browsers = new ShutdownCoordinator(deadline, teardownStats);
+        for (BrowserWorker worker : workers) {
+            workers.remove(worker);
+            browsers.add("browser worker " + worker.getName(), worker::forceKill,
+                    new ShutdownCoordinator.Step("context", worker::closeContexts),
+                    new ShutdownCoordinator.Step("browser", worker::closeBrowser),
+                    new ShutdownCoordinator.Step("playwright", worker::closePlaywright));
+        }
+        for (AppiumDriver driver : mobileDrivers) {
+            mobileDrivers.remove(driver);
+            // The session lives on the Appium server, its newCommandTimeout ends it if quitting hangs
+            mobileSessionPool.remove(driver);
+            browsers.add("mobile session " + driver.getSessionId(), null,
+                    new ShutdownCoordinator.Step("appium session", driver::quit));
+        }
+        browsers.closeAll();
+        workerThreadLocal.remove();
+        logger.info("Closed all feature browsers, context pool: {}", poolStats);
+        logger.info("Teardown: {}", teardownStats);
+    }
+
     /**
-     * Close all feature browsers
+     * End an Appium session and stop tracking it
+     * @param driver Session to quit
      */
-    public static synchronized void closeAllFeatureBrowsers() {
-        for (String featureUri : featureBrowsers.keySet()) {
-            closeBrowserForFeature(featureUri);
+    private static void quitMobileDriver(AppiumDriver driver) {
+        mobileDrivers.remove(driver);
+        driver.quit();
+    }
+
+    /**
+     * Package or bundle id of the app under test
+     * @param platform Platform name
+     * @return iosAppBundleId for ios, androidAppPackage otherwise
+     */
+    private static String getAppId(String platform) {
+        return "ios".equalsIgnoreCase(platform)
+                ? ConfigManager.getInstance().getProperty("iosAppBundleId")
+                : ConfigManager.getInstance().getProperty("androidAppPackage");
+    }
+
+    /**
+     * Get the worker of the current thread, taking an idle one or launching a browser on first use
+     * @return Browser worker for the current thread
+     */
+    private static BrowserWorker getWorker() {
+        BrowserWorker worker = workerThreadLocal.get();
+        // A worker closed by closeAllFeatureBrowsers from another thread is replaced
+        if (worker == null || !workers.contains(worker)) {
+            worker = takeIdleWorker();
+            if (worker == null) {
+                worker = new BrowserWorker(Thread.currentThread().getName(), contextPoolSize, poolStats);
+                workers.add(worker);
+            }
+            workerThreadLocal.set(worker);
+        }
+        return worker;
+    }
+
+    /**
+     * Take a worker released by a finished scenario thread
+     * @return Live idle worker, or null if there is none
+     */
+    private static BrowserWorker takeIdleWorker() {
+        BrowserWorker worker;
+        while ((worker = idleWorkers.pollFirst()) != null) {
+            if (workers.contains(worker)) {
+                return worker;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Close a page together with its browser context
+     * @param page Page to close
+     */
+    private static void closePage(Page page) {
+        if (page.isClosed()) {
+            // Already gone together with its worker browser
+            return;
+        }
+        try {
+            page.context().close();
+            poolStats.recordClose();
+        } catch (Exception e) {
+            logger.error("Error closing Page", e);
         }
-        featureBrowsers.clear();
-        featurePages.clear();
-        featurePlaywrights.clear();
-        logger.info("Closed all feature browsers");
     }
-} 
\ No newline at end of file
+}
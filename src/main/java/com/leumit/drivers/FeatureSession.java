@@ -0,0 +1,104 @@
+package com.leumit.drivers;
+
+import com.microsoft.playwright.Page;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * FeatureSession - The page of one feature and where it is in its lifecycle
+ * A session moves CREATING -> OPEN -> CLOSING -> CLOSED, every step a compare-and-set, so lookups
+ * never wait for a page being created or closed: they just see that it is not open.
+ */
+class FeatureSession {
+
+    /**
+     * Lifecycle state of a feature session
+     */
+    enum State {
+        CREATING, OPEN, CLOSING, CLOSED
+    }
+
+    private final String featureUri;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CREATING);
+    private final CompletableFuture<Page> page = new CompletableFuture<>();
+
+    /**
+     * Register a session whose page is yet to be created
+     * @param featureUri The feature URI
+     */
+    FeatureSession(String featureUri) {
+        this.featureUri = featureUri;
+    }
+
+    String getFeatureUri() {
+        return featureUri;
+    }
+
+    /**
+     * Create the page; called once, by the thread that registered the session
+     * @param factory Creates the page, may take seconds
+     * @return true if the session opened, false if it was closed while the page was created
+     */
+    boolean open(Supplier<Page> factory) {
+        try {
+            page.complete(factory.get());
+        } catch (RuntimeException e) {
+            state.set(State.CLOSED);
+            page.completeExceptionally(e);
+            throw e;
+        }
+        return state.compareAndSet(State.CREATING, State.OPEN);
+    }
+
+    /**
+     * Get the page without waiting
+     * @return The page if the session is open, null otherwise
+     */
+    Page getPage() {
+        return state.get() == State.OPEN ? page.getNow(null) : null;
+    }
+
+    /**
+     * Wait for the page of a session another thread is creating
+     * @return The page, or null if the session was closed or could not be created
+     */
+    Page awaitPage() {
+        Page created = page.exceptionally(error -> null).join();
+        return state.get() == State.OPEN ? created : null;
+    }
+
+    /**
+     * Check whether the session holds a page
+     * @param candidate Page to look for
+     * @return true if the page is this session's page
+     */
+    boolean holds(Page candidate) {
+        return candidate != null && page.getNow(null) == candidate;
+    }
+
+    /**
+     * Claim the session for closing; only one caller wins
+     * @return true if the caller must close the page
+     */
+    boolean beginClose() {
+        return state.compareAndSet(State.OPEN, State.CLOSING)
+                || state.compareAndSet(State.CREATING, State.CLOSING);
+    }
+
+    /**
+     * Take the page to close once beginClose was won, waiting if it is still being created
+     * @return The page, or null if it could not be created
+     */
+    Page pageToClose() {
+        return page.exceptionally(error -> null).join();
+    }
+
+    /**
+     * Mark the session closed after its page was closed
+     */
+    void markClosed() {
+        state.set(State.CLOSED);
+    }
+}
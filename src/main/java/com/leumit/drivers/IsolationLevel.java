@@ -0,0 +1,35 @@
+package com.leumit.drivers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * IsolationLevel - How long a pooled browser context lives before it is discarded
+ */
+public enum IsolationLevel {
+    /** Every scenario gets a fresh context that is closed when the scenario ends */
+    SCENARIO,
+    /** All scenarios of a feature share one context, closed when the feature is closed */
+    FEATURE,
+    /** All scenarios on a worker share one context for the whole run */
+    WORKER;
+
+    private static final Logger logger = LoggerFactory.getLogger(IsolationLevel.class);
+
+    /**
+     * Parse an isolation level from a configuration value
+     * @param value Configuration value (scenario, feature or worker)
+     * @return Matching isolation level, SCENARIO if the value is missing or unknown
+     */
+    public static IsolationLevel fromConfig(String value) {
+        if (value == null || value.isBlank()) {
+            return SCENARIO;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unknown browser isolation level: {}, using scenario", value);
+            return SCENARIO;
+        }
+    }
+}
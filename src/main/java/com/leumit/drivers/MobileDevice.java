@@ -0,0 +1,26 @@
+package com.leumit.drivers;
+
+/**
+ * MobileDevice - A device or emulator scenarios can be scheduled on
+ *
+ * @param name Device name, shown in the report
+ * @param platform android or ios
+ * @param udid Device UDID, empty to let Appium pick the only connected device
+ * @param systemPort UiAutomator2 system port or WebDriverAgent port, unique per device; 0 for the default
+ * @param appiumUrl Appium server the device is attached to
+ */
+public record MobileDevice(String name, String platform, String udid, int systemPort, String appiumUrl) {
+
+    /**
+     * Check whether this is an iOS device
+     * @return true for ios, false for android
+     */
+    public boolean isIos() {
+        return "ios".equalsIgnoreCase(platform);
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + platform + (udid.isEmpty() ? "" : " " + udid) + ")";
+    }
+}
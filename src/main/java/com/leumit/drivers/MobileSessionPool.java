@@ -0,0 +1,201 @@
+package com.leumit.drivers;
+
+import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.InteractsWithApps;
+import io.appium.java_client.android.AndroidDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * MobileSessionPool - Keeps Appium sessions alive across scenarios
+ * Starting a UiAutomator2 or XCUITest session takes tens of seconds, resetting the app takes one or two.
+ * A released session has its app reset and waits for the next scenario leasing the same device; a session
+ * that fails its health check or its reset, or has been used maxUses times, is quit and replaced.
+ * Sessions are created by the given factory, so the pool works the same against a local stub server.
+ */
+public class MobileSessionPool {
+    private static final Logger logger = LoggerFactory.getLogger(MobileSessionPool.class);
+    private final Function<MobileDevice, AppiumDriver> factory;
+    private final Consumer<AppiumDriver> quitter;
+    private final Function<String, String> appIds;
+    private final ResetMode resetMode;
+    private final int maxUses;
+    private final Map<MobileDevice, Deque<AppiumDriver>> idleSessions = new ConcurrentHashMap<>();
+    private final Map<AppiumDriver, Lease> leases = new ConcurrentHashMap<>();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder recycled = new LongAdder();
+
+    /**
+     * How a released session's app is brought back to its starting state
+     */
+    public enum ResetMode {
+        /** Leave the app as the scenario left it */
+        NONE,
+        /** Terminate and relaunch the app, keeping its data */
+        RESTART,
+        /** Clear the app's data, then launch it; iOS cannot clear data and restarts instead */
+        CLEAR;
+
+        /**
+         * Parse a reset mode from a configuration value
+         * @param value Configuration value (none, restart or clear), may be empty
+         * @param noReset Whether the noReset capability is set; then data is kept unless clear is asked for
+         * @return Matching reset mode
+         */
+        public static ResetMode fromConfig(String value, boolean noReset) {
+            if (value == null || value.isBlank()) {
+                return noReset ? RESTART : CLEAR;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                logger.warn("Unknown mobile reset mode '{}', using {}", value, noReset ? "restart" : "clear");
+                return noReset ? RESTART : CLEAR;
+            }
+        }
+    }
+
+    /**
+     * The device a session runs on and how often it has been handed out
+     */
+    private record Lease(MobileDevice device, int uses) {
+    }
+
+    /**
+     * Constructor for MobileSessionPool
+     * @param factory Creates a session on a device
+     * @param quitter Ends a session that leaves the pool
+     * @param appIds Package or bundle id of the app under test per platform
+     * @param resetMode How the app is reset between scenarios
+     * @param maxUses Scenarios a session may serve before it is replaced, 0 for no limit
+     */
+    public MobileSessionPool(Function<MobileDevice, AppiumDriver> factory, Consumer<AppiumDriver> quitter,
+                             Function<String, String> appIds, ResetMode resetMode, int maxUses) {
+        this.factory = factory;
+        this.quitter = quitter;
+        this.appIds = appIds;
+        this.resetMode = resetMode;
+        this.maxUses = maxUses;
+    }
+
+    /**
+     * Take a healthy idle session on a device, or start a new one
+     * @param device Device leased by the scenario
+     * @return Appium session, to be handed back with release
+     */
+    public AppiumDriver acquire(MobileDevice device) {
+        Deque<AppiumDriver> idle = idleSessions.get(device);
+        AppiumDriver driver;
+        while (idle != null && (driver = idle.pollFirst()) != null) {
+            Lease lease = leases.get(driver);
+            if (lease != null && isHealthy(driver, device.platform())) {
+                leases.put(driver, new Lease(device, lease.uses() + 1));
+                reused.increment();
+                logger.info("Reusing mobile session {} on device: {}", driver.getSessionId(), device);
+                return driver;
+            }
+            recycle(driver, "failed its health check");
+        }
+        driver = factory.apply(device);
+        leases.put(driver, new Lease(device, 1));
+        created.increment();
+        return driver;
+    }
+
+    /**
+     * Hand a session back after a scenario; its app is reset for the next one
+     * @param driver Session returned by acquire
+     */
+    public void release(AppiumDriver driver) {
+        Lease lease = leases.get(driver);
+        if (lease == null) {
+            return;
+        }
+        if (maxUses > 0 && lease.uses() >= maxUses) {
+            recycle(driver, "reached " + maxUses + " uses");
+            return;
+        }
+        try {
+            reset(driver, lease.device().platform());
+        } catch (Exception e) {
+            logger.warn("Failed to reset app on mobile session {}", driver.getSessionId(), e);
+            recycle(driver, "failed its app reset");
+            return;
+        }
+        idleSessions.computeIfAbsent(lease.device(), key -> new ConcurrentLinkedDeque<>()).offerFirst(driver);
+    }
+
+    /**
+     * Forget a session that was quit outside the pool
+     * @param driver Session that has ended
+     */
+    public void remove(AppiumDriver driver) {
+        leases.remove(driver);
+        idleSessions.values().forEach(idle -> idle.remove(driver));
+    }
+
+    /**
+     * Check a session with one cheap round-trip that needs a live session
+     */
+    private boolean isHealthy(AppiumDriver driver, String platform) {
+        try {
+            if (driver.getSessionId() == null) {
+                return false;
+            }
+            ((InteractsWithApps) driver).queryAppState(appIds.apply(platform));
+            return true;
+        } catch (Exception e) {
+            logger.debug("Mobile session {} failed its health check", driver.getSessionId(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Bring the app of a session back to its starting state
+     */
+    private void reset(AppiumDriver driver, String platform) {
+        if (resetMode == ResetMode.NONE) {
+            return;
+        }
+        String appId = appIds.apply(platform);
+        InteractsWithApps apps = (InteractsWithApps) driver;
+        apps.terminateApp(appId);
+        if (resetMode == ResetMode.CLEAR && driver instanceof AndroidDriver) {
+            driver.executeScript("mobile: clearApp", Map.of("appId", appId));
+        }
+        apps.activateApp(appId);
+        logger.debug("Reset app {} on mobile session {} ({})", appId, driver.getSessionId(), resetMode);
+    }
+
+    private void recycle(AppiumDriver driver, String reason) {
+        logger.info("Recycling mobile session {}: it {}", driver.getSessionId(), reason);
+        leases.remove(driver);
+        recycled.increment();
+        quitQuietly(driver);
+    }
+
+    private void quitQuietly(AppiumDriver driver) {
+        try {
+            quitter.accept(driver);
+        } catch (Exception e) {
+            logger.warn("Error quitting mobile session {}", driver.getSessionId(), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        long total = created.sum() + reused.sum();
+        return String.format("created=%d, reused=%d, reuseRatio=%.2f, recycled=%d, resetMode=%s",
+                created.sum(), reused.sum(), total == 0 ? 0 : (double) reused.sum() / total,
+                recycled.sum(), resetMode.name().toLowerCase());
+    }
+}
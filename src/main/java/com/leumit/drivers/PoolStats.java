@@ -0,0 +1,98 @@
+package com.leumit.drivers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PoolStats - Hit/miss and creation latency counters for the browser context pool
+ * Shared by all worker pools, so counters are contention-friendly adders
+ */
+public class PoolStats {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+    private final LongAdder creationNanos = new LongAdder();
+    private final LongAccumulator maxCreationNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Record an acquire served from a pre-created context
+     */
+    public void recordHit() {
+        hits.increment();
+    }
+
+    /**
+     * Record an acquire that had to create a context on demand
+     */
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    /**
+     * Record the creation of a context
+     * @param nanos Time taken to create the context and its page
+     */
+    public void recordCreation(long nanos) {
+        created.increment();
+        creationNanos.add(nanos);
+        maxCreationNanos.accumulate(nanos);
+    }
+
+    /**
+     * Record the closing of a context
+     */
+    public void recordClose() {
+        closed.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getCreated() {
+        return created.sum();
+    }
+
+    public long getClosed() {
+        return closed.sum();
+    }
+
+    /**
+     * Get the hit ratio of acquires
+     * @return Ratio between 0 and 1, or 0 if nothing was acquired yet
+     */
+    public double getHitRatio() {
+        long total = getHits() + getMisses();
+        return total == 0 ? 0 : (double) getHits() / total;
+    }
+
+    /**
+     * Get the average context creation time
+     * @return Average creation time in milliseconds
+     */
+    public double getAverageCreationMillis() {
+        long count = getCreated();
+        return count == 0 ? 0 : (double) creationNanos.sum() / count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Get the slowest context creation time
+     * @return Maximum creation time in milliseconds
+     */
+    public double getMaxCreationMillis() {
+        return (double) maxCreationNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d, hitRatio=%.2f, created=%d, closed=%d, avgCreation=%.1fms, maxCreation=%.1fms",
+                getHits(), getMisses(), getHitRatio(), getCreated(), getClosed(),
+                getAverageCreationMillis(), getMaxCreationMillis());
+    }
+}
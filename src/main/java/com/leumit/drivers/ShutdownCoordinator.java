@@ -0,0 +1,153 @@
+package com.leumit.drivers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ShutdownCoordinator - Closes resources concurrently, each within a deadline
+ * Every resource closes on its own virtual thread through an ordered list of steps, e.g. context,
+ * browser, then Playwright. A resource still closing at the deadline is force-killed and the rest of
+ * its steps are skipped, so one hung browser cannot hold up the end of the run.
+ */
+public class ShutdownCoordinator {
+    private static final Logger logger = LoggerFactory.getLogger(ShutdownCoordinator.class);
+    private final Duration deadline;
+    private final TeardownStats stats;
+    private final List<Resource> resources = new ArrayList<>();
+
+    /**
+     * One step of closing a resource
+     * @param type Resource type the time is reported under
+     * @param action Closes that part of the resource
+     */
+    public record Step(String type, Runnable action) {
+    }
+
+    /**
+     * Constructor for ShutdownCoordinator
+     * @param deadline Time each resource is given to close
+     * @param stats Statistics to record close times into
+     */
+    public ShutdownCoordinator(Duration deadline, TeardownStats stats) {
+        this.deadline = deadline;
+        this.stats = stats;
+    }
+
+    /**
+     * Register a resource to close
+     * @param name Resource name used in logs
+     * @param forceKill Kills the resource if it misses the deadline, may be null if it can only be abandoned
+     * @param steps Steps closing the resource, run in order
+     * @return This coordinator
+     */
+    public ShutdownCoordinator add(String name, Runnable forceKill, Step... steps) {
+        resources.add(new Resource(name, forceKill, List.of(steps)));
+        return this;
+    }
+
+    /**
+     * Close all registered resources at once and wait at most the deadline for them
+     */
+    public void closeAll() {
+        if (resources.isEmpty()) {
+            return;
+        }
+        ThreadFactory threadFactory = Thread.ofVirtual().name("teardown-", 0).factory();
+        long start = System.nanoTime();
+        for (Resource resource : resources) {
+            resource.thread = threadFactory.newThread(resource::close);
+            resource.thread.start();
+        }
+        long deadlineNanos = start + deadline.toNanos();
+        for (Resource resource : resources) {
+            try {
+                resource.done.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                resource.kill(start);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                resource.kill(start);
+            } catch (ExecutionException e) {
+                logger.error("Error closing {}", resource.name, e.getCause());
+            }
+        }
+        logger.info("Closed {} resources in {} ms", resources.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        resources.clear();
+    }
+
+    /**
+     * Resource - A resource being closed and the step it has reached
+     */
+    private final class Resource {
+        private final String name;
+        private final Runnable forceKill;
+        private final List<Step> steps;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final AtomicInteger currentStep = new AtomicInteger();
+        private final AtomicBoolean killed = new AtomicBoolean();
+        private Thread thread;
+
+        private Resource(String name, Runnable forceKill, List<Step> steps) {
+            this.name = name;
+            this.forceKill = forceKill;
+            this.steps = steps;
+        }
+
+        private void close() {
+            for (int i = 0; i < steps.size(); i++) {
+                currentStep.set(i);
+                Step step = steps.get(i);
+                long stepStart = System.nanoTime();
+                try {
+                    step.action().run();
+                } catch (Exception e) {
+                    if (!killed.get()) {
+                        logger.error("Error closing {} of {}", step.type(), name, e);
+                    }
+                }
+                if (killed.get()) {
+                    return;
+                }
+                stats.recordClose(step.type(), System.nanoTime() - stepStart);
+            }
+            currentStep.set(steps.size());
+            done.complete(null);
+        }
+
+        /**
+         * Give up on the resource: kill it and count its unfinished steps as killed
+         */
+        private void kill(long start) {
+            if (!killed.compareAndSet(false, true)) {
+                return;
+            }
+            long waited = System.nanoTime() - start;
+            for (int i = currentStep.get(); i < steps.size(); i++) {
+                stats.recordKill(steps.get(i).type(), waited);
+            }
+            if (forceKill == null) {
+                logger.warn("{} did not close within {} ms, abandoning it", name, deadline.toMillis());
+                return;
+            }
+            logger.warn("{} did not close within {} ms, killing it", name, deadline.toMillis());
+            try {
+                forceKill.run();
+            } catch (Exception e) {
+                logger.error("Error killing {}", name, e);
+            }
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.leumit.drivers;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TeardownStats - Close times per resource type, e.g. context, browser, playwright or appium session
+ * Resources close concurrently, so counters are contention-friendly adders
+ */
+public class TeardownStats {
+    private final Map<String, TypeStats> byType = new ConcurrentHashMap<>();
+
+    /**
+     * Record a resource that closed before its deadline
+     * @param type Resource type
+     * @param nanos Time taken to close it
+     */
+    public void recordClose(String type, long nanos) {
+        TypeStats stats = statsFor(type);
+        stats.closed.increment();
+        stats.totalNanos.add(nanos);
+        stats.maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Record a resource that missed its deadline and was killed or abandoned
+     * @param type Resource type
+     * @param nanos Time waited before giving up on it
+     */
+    public void recordKill(String type, long nanos) {
+        TypeStats stats = statsFor(type);
+        stats.killed.increment();
+        stats.totalNanos.add(nanos);
+        stats.maxNanos.accumulate(nanos);
+    }
+
+    private TypeStats statsFor(String type) {
+        return byType.computeIfAbsent(type, key -> new TypeStats());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        new TreeMap<>(byType).forEach((type, stats) -> {
+            if (result.length() > 0) {
+                result.append("; ");
+            }
+            long count = stats.closed.sum() + stats.killed.sum();
+            result.append(String.format("%s: closed=%d, killed=%d, avg=%.1fms, max=%.1fms",
+                    type, stats.closed.sum(), stats.killed.sum(),
+                    count == 0 ? 0 : toMillis(stats.totalNanos.sum()) / count, toMillis(stats.maxNanos.get())));
+        });
+        return result.length() > 0 ? result.toString() : "nothing to close";
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * TypeStats - Counters of one resource type
+     */
+    private static final class TypeStats {
+        private final LongAdder closed = new LongAdder();
+        private final LongAdder killed = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    }
+}
@@ -0,0 +1,223 @@
+package com.leumit.execution;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * FeatureAffinityScheduler - Runs features in parallel on a fixed set of workers
+ * All scenarios of a feature run in order on the worker that picked the feature up,
+ * so they share that worker's browser. Idle workers steal whole features from busy ones.
+ */
+public class FeatureAffinityScheduler implements ScenarioExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(FeatureAffinityScheduler.class);
+    private final Map<String, FeatureWork> features = new LinkedHashMap<>();
+    private final List<Worker> workers = new ArrayList<>();
+    private final Runnable workerExitHook;
+    private final LongAdder steals = new LongAdder();
+    private volatile boolean started;
+
+    /**
+     * Constructor for FeatureAffinityScheduler
+     * @param workerCount Number of worker threads
+     * @param workerExitHook Runs on each worker thread before it exits, e.g. to close its browser
+     */
+    public FeatureAffinityScheduler(int workerCount, Runnable workerExitHook) {
+        for (int i = 0; i < Math.max(1, workerCount); i++) {
+            workers.add(new Worker(i));
+        }
+        this.workerExitHook = workerExitHook;
+    }
+
+    /**
+     * Queue a scenario of a feature; scenarios of the same feature run in submission order
+     * @param featureKey Key identifying the feature, e.g. its URI
+     * @param scenario Scenario to run
+     * @return Future completed with the scenario's outcome
+     */
+    @Override
+    public CompletableFuture<Void> submit(String featureKey, Runnable scenario) {
+        if (started) {
+            throw new IllegalStateException("Scenarios must be submitted before the scheduler starts");
+        }
+        ScenarioTask task = new ScenarioTask(scenario, new CompletableFuture<>());
+        features.computeIfAbsent(featureKey, FeatureWork::new).scenarios.add(task);
+        return task.result;
+    }
+
+    /**
+     * Distribute the features over the workers and start them
+     * Largest features are placed first, each on the worker with the least queued scenarios
+     */
+    @Override
+    public void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        features.values().stream()
+                .sorted(Comparator.comparingInt((FeatureWork work) -> work.scenarios.size()).reversed())
+                .forEach(work -> workers.stream()
+                        .min(Comparator.comparingInt(worker -> worker.queuedScenarios.get()))
+                        .ifPresent(worker -> worker.offer(work)));
+
+        logger.info("Scheduling {} features on {} workers", features.size(), workers.size());
+        workers.forEach(worker -> worker.thread.start());
+    }
+
+    /**
+     * Wait for all workers to finish
+     * @param timeout Maximum time to wait
+     * @param unit Unit of the timeout
+     * @return true if all workers finished in time
+     */
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Worker worker : workers) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return false;
+            }
+            worker.thread.join(remaining);
+            if (worker.thread.isAlive()) {
+                return false;
+            }
+        }
+        logger.info("Executed {} features on {} workers with {} steals",
+                features.size(), workers.size(), getStealCount());
+        return true;
+    }
+
+    /**
+     * Get the number of features taken from another worker's queue
+     * @return Steal count
+     */
+    public long getStealCount() {
+        return steals.sum();
+    }
+
+    /**
+     * Get the number of workers
+     * @return Worker count
+     */
+    public int getWorkerCount() {
+        return workers.size();
+    }
+
+    @Override
+    public String describe() {
+        return workers.size() + " feature workers";
+    }
+
+    /**
+     * Take a whole feature from the tail of the busiest other worker
+     * @param thief Worker looking for work
+     * @return Stolen feature or null if every queue is empty
+     */
+    private FeatureWork steal(Worker thief) {
+        while (true) {
+            Worker victim = null;
+            for (Worker worker : workers) {
+                if (worker != thief && !worker.queue.isEmpty()
+                        && (victim == null || worker.queuedScenarios.get() > victim.queuedScenarios.get())) {
+                    victim = worker;
+                }
+            }
+            if (victim == null) {
+                return null;
+            }
+            FeatureWork work = victim.queue.pollLast();
+            if (work != null) {
+                victim.queuedScenarios.addAndGet(-work.scenarios.size());
+                steals.increment();
+                logger.info("Worker {} stole feature {} from worker {}", thief.index, work.key, victim.index);
+                return work;
+            }
+        }
+    }
+
+    /**
+     * FeatureWork - The ordered scenarios of one feature
+     */
+    private static final class FeatureWork {
+        private final String key;
+        private final List<ScenarioTask> scenarios = new ArrayList<>();
+
+        private FeatureWork(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * ScenarioTask - A scenario and the future reporting its outcome
+     */
+    private record ScenarioTask(Runnable scenario, CompletableFuture<Void> result) {
+    }
+
+    /**
+     * Worker - A thread with its own double-ended queue of features
+     * The owner takes from the head, thieves take from the tail
+     */
+    private final class Worker implements Runnable {
+        private final int index;
+        private final ConcurrentLinkedDeque<FeatureWork> queue = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger queuedScenarios = new AtomicInteger();
+        private final Thread thread;
+
+        private Worker(int index) {
+            this.index = index;
+            this.thread = new Thread(this, "feature-worker-" + index);
+        }
+
+        private void offer(FeatureWork work) {
+            queue.addLast(work);
+            queuedScenarios.addAndGet(work.scenarios.size());
+        }
+
+        @Override
+        public void run() {
+            try {
+                FeatureWork work;
+                while ((work = next()) != null) {
+                    logger.info("Worker {} running feature: {}", index, work.key);
+                    for (ScenarioTask task : work.scenarios) {
+                        try {
+                            task.scenario.run();
+                            task.result.complete(null);
+                        } catch (Throwable t) {
+                            task.result.completeExceptionally(t);
+                        }
+                    }
+                }
+            } finally {
+                if (workerExitHook != null) {
+                    try {
+                        workerExitHook.run();
+                    } catch (Exception e) {
+                        logger.error("Worker {} exit hook failed", index, e);
+                    }
+                }
+            }
+        }
+
+        private FeatureWork next() {
+            FeatureWork work = queue.pollFirst();
+            if (work != null) {
+                queuedScenarios.addAndGet(-work.scenarios.size());
+                return work;
+            }
+            return steal(this);
+        }
+    }
+}
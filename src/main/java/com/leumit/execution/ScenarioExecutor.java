@@ -0,0 +1,38 @@
+package com.leumit.execution;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ScenarioExecutor - Runs the scenarios handed to it by a runner
+ * All scenarios are submitted before the executor starts; scenarios of the same feature keep their order.
+ */
+public interface ScenarioExecutor {
+
+    /**
+     * Queue a scenario of a feature
+     * @param featureKey Key identifying the feature, e.g. its URI
+     * @param scenario Scenario to run
+     * @return Future completed with the scenario's outcome
+     */
+    CompletableFuture<Void> submit(String featureKey, Runnable scenario);
+
+    /**
+     * Start running the submitted scenarios
+     */
+    void start();
+
+    /**
+     * Wait for all scenarios to finish
+     * @param timeout Maximum time to wait
+     * @param unit Unit of the timeout
+     * @return true if all scenarios finished in time
+     */
+    boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Describe how the scenarios are run, for the run log
+     * @return Short description, e.g. the number of workers
+     */
+    String describe();
+}
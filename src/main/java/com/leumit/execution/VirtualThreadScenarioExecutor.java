@@ -0,0 +1,176 @@
+package com.leumit.execution;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * VirtualThreadScenarioExecutor - Runs scenarios on one virtual thread per browser or device
+ * A scenario spends most of its time blocked on Playwright or Appium calls, which costs a virtual
+ * thread nothing. What is limited is the real resource, so there is one long-lived virtual thread
+ * per browser or device, each taking the next scenario from a shared queue in submission order.
+ * The threads are reused rather than started per scenario because Cucumber keeps one Runner per
+ * thread, and building one loads the glue and creates an object factory: a thread per scenario
+ * would pay that for every scenario, a thread per resource pays it once per resource.
+ * When the scenarios of a feature share state (a feature-wide page), the feature is queued as one
+ * unit and its scenarios run in order on the thread that takes it.
+ */
+public class VirtualThreadScenarioExecutor implements ScenarioExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadScenarioExecutor.class);
+    private final Map<String, List<ScenarioTask>> features = new LinkedHashMap<>();
+    private final Queue<WorkUnit> queue = new ConcurrentLinkedQueue<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private final ThreadFactory threadFactory = Thread.ofVirtual().name("scenario-", 0).factory();
+    private final int resourceCount;
+    private final boolean keepFeaturesTogether;
+    private final Runnable releaseHook;
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger peakRunning = new AtomicInteger();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder leases = new LongAdder();
+    private volatile boolean started;
+    private long startedAt;
+
+    /**
+     * Constructor for VirtualThreadScenarioExecutor
+     * @param resourceCount Number of browsers or devices scenarios may use at the same time
+     * @param keepFeaturesTogether Run the scenarios of a feature in order on one thread
+     * @param releaseHook Runs on the scenario thread before its permit is released, e.g. to hand its browser back
+     */
+    public VirtualThreadScenarioExecutor(int resourceCount, boolean keepFeaturesTogether, Runnable releaseHook) {
+        this.resourceCount = Math.max(1, resourceCount);
+        this.keepFeaturesTogether = keepFeaturesTogether;
+        this.releaseHook = releaseHook;
+    }
+
+    @Override
+    public CompletableFuture<Void> submit(String featureKey, Runnable scenario) {
+        if (started) {
+            throw new IllegalStateException("Scenarios must be submitted before the executor starts");
+        }
+        ScenarioTask task = new ScenarioTask(scenario, new CompletableFuture<>());
+        features.computeIfAbsent(featureKey, key -> new ArrayList<>()).add(task);
+        return task.result;
+    }
+
+    /**
+     * Queue every scenario, or every feature when features are kept together, and start one virtual
+     * thread per resource to work through the queue in submission order
+     */
+    @Override
+    public void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        features.forEach((featureKey, tasks) -> {
+            if (keepFeaturesTogether) {
+                queue.add(new WorkUnit(featureKey, tasks));
+            } else {
+                tasks.forEach(task -> queue.add(new WorkUnit(featureKey, List.of(task))));
+            }
+        });
+        int unitCount = queue.size();
+        startedAt = System.nanoTime();
+        int threadCount = Math.min(resourceCount, unitCount);
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = threadFactory.newThread(this::work);
+            thread.start();
+            threads.add(thread);
+        }
+        logger.info("Started {} virtual threads for {} features, {} units of work",
+                threads.size(), features.size(), unitCount);
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Thread thread : threads) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return false;
+            }
+            thread.join(remaining);
+            if (thread.isAlive()) {
+                return false;
+            }
+        }
+        long leaseCount = Math.max(1, leases.sum());
+        logger.info("Executed {} features on {} virtual threads, peak {} of {} resources in use, "
+                        + "mean wait from start until picked up {} ms",
+                features.size(), threads.size(), peakRunning.get(), resourceCount,
+                TimeUnit.NANOSECONDS.toMillis(waitNanos.sum() / leaseCount));
+        return true;
+    }
+
+    @Override
+    public String describe() {
+        return resourceCount + " reusable virtual threads, one per resource";
+    }
+
+    /**
+     * Take units of work from the queue until it is empty; the thread stands for one browser or device
+     */
+    private void work() {
+        WorkUnit unit;
+        while ((unit = queue.poll()) != null) {
+            waitNanos.add(System.nanoTime() - startedAt);
+            leases.increment();
+            peakRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                run(unit);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Run the scenarios of a unit in order, then hand its resource back through the release hook
+     */
+    private void run(WorkUnit unit) {
+        try {
+            logger.debug("Thread {} running {} scenarios of feature: {}",
+                    Thread.currentThread().getName(), unit.tasks().size(), unit.featureKey());
+            for (ScenarioTask task : unit.tasks()) {
+                try {
+                    task.scenario.run();
+                    task.result.complete(null);
+                } catch (Throwable t) {
+                    task.result.completeExceptionally(t);
+                }
+            }
+        } finally {
+            if (releaseHook != null) {
+                try {
+                    releaseHook.run();
+                } catch (Exception e) {
+                    logger.error("Release hook failed on thread {}", Thread.currentThread().getName(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * WorkUnit - Scenarios run in order by one thread: a single scenario, or a whole feature
+     */
+    private record WorkUnit(String featureKey, List<ScenarioTask> tasks) {
+    }
+
+    /**
+     * ScenarioTask - A scenario and the future reporting its outcome
+     */
+    private record ScenarioTask(Runnable scenario, CompletableFuture<Void> result) {
+    }
+}
@@ -0,0 +1,266 @@
+package com.leumit.network;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.leumit.config.ConfigManager;
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Route;
+import com.microsoft.playwright.options.HarContentPolicy;
+import com.microsoft.playwright.options.HarMode;
+import com.microsoft.playwright.options.HarNotFound;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * HarArchive - Records a HAR per feature and replays features from their HAR
+ * Archives are stored as .har.zip, with the response bodies as separate zip entries. Next to every
+ * archive a .urls index lists the recorded "METHOD URL" pairs; replay looks requests up in that index
+ * first, so a miss is detected with one hash lookup and handled by the configured harNotFound policy:
+ * fail (abort the request), fallthrough (go to the network) or 404.
+ */
+public class HarArchive {
+    private static final Logger logger = LoggerFactory.getLogger(HarArchive.class);
+    private static final String ALL_URLS = "**/*";
+    private static final Map<Path, Set<String>> indexes = new ConcurrentHashMap<>();
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    private static final Mode mode;
+    private static final MissPolicy missPolicy;
+    private static final Path directory;
+
+    static {
+        ConfigManager config = ConfigManager.getInstance();
+        mode = parse(Mode.class, config.getProperty("harMode", "off"), Mode.OFF);
+        missPolicy = parse(MissPolicy.class, config.getProperty("harNotFound", "fail"), MissPolicy.FAIL);
+        directory = Paths.get(config.getProperty("harDirectory", "src/test/resources/har"));
+    }
+
+    /**
+     * How the web suite uses HAR archives
+     */
+    public enum Mode {
+        OFF, RECORD, REPLAY
+    }
+
+    /**
+     * What replay does with a request that is not in the archive
+     */
+    public enum MissPolicy {
+        FAIL, FALLTHROUGH, NOT_FOUND
+    }
+
+    public static Mode getMode() {
+        return mode;
+    }
+
+    public static boolean isEnabled() {
+        return mode != Mode.OFF;
+    }
+
+    /**
+     * Options for a context that records the feature's traffic; the archive is written when the context closes
+     * @param featureUri Feature URI
+     * @return Context options recording to the feature's archive
+     */
+    public static Browser.NewContextOptions recordingOptions(String featureUri) {
+        Path archive = archivePath(featureUri);
+        try {
+            Files.createDirectories(archive.getParent());
+            // A new recording invalidates the index of the previous one
+            Files.deleteIfExists(indexPath(archive));
+        } catch (IOException e) {
+            logger.error("Failed to prepare HAR directory: {}", directory, e);
+        }
+        logger.info("Recording HAR for feature: {} to {}", featureUri, archive);
+        return new Browser.NewContextOptions()
+                .setRecordHarPath(archive)
+                .setRecordHarContent(HarContentPolicy.ATTACH)
+                .setRecordHarMode(HarMode.MINIMAL);
+    }
+
+    /**
+     * Serve all requests of a page from the feature's archive
+     * @param page Page of the feature
+     * @param featureUri Feature URI
+     */
+    public static void replay(Page page, String featureUri) {
+        Path archive = archivePath(featureUri);
+        if (!Files.exists(archive)) {
+            throw new IllegalStateException("No HAR recorded for feature " + featureUri + ", expected " + archive
+                    + " - run once with harMode=record");
+        }
+        Set<String> index = indexes.computeIfAbsent(archive, HarArchive::loadIndex);
+
+        // Misses fall back to the routes installed before, the miss policy route below decides first
+        page.routeFromHAR(archive, new Page.RouteFromHAROptions().setNotFound(HarNotFound.FALLBACK));
+        page.route(ALL_URLS, route -> handleLookup(route, index));
+        logger.info("Replaying feature {} from {} ({} recorded requests)", featureUri, archive, index.size());
+    }
+
+    /**
+     * Replay statistics of this run
+     * @return Summary of hits and misses
+     */
+    public static String getStats() {
+        return String.format("mode=%s, hits=%d, misses=%d (%s)",
+                mode.name().toLowerCase(), hits.sum(), misses.sum(), missPolicy.name().toLowerCase());
+    }
+
+    private static void handleLookup(Route route, Set<String> index) {
+        String key = route.request().method() + " " + stripFragment(route.request().url());
+        if (index.contains(key)) {
+            hits.increment();
+            route.fallback();
+            return;
+        }
+        misses.increment();
+        switch (missPolicy) {
+            case FAIL -> {
+                logger.error("Request not in HAR: {}", key);
+                route.abort("failed");
+            }
+            case FALLTHROUGH -> {
+                logger.warn("Request not in HAR, going to the network: {}", key);
+                // Passes the HAR route as well, since it falls back on unknown requests
+                route.fallback();
+            }
+            case NOT_FOUND -> {
+                logger.warn("Request not in HAR, answering 404: {}", key);
+                route.fulfill(new Route.FulfillOptions().setStatus(404));
+            }
+        }
+    }
+
+    /**
+     * Load the index of an archive, building it from the HAR when it is missing or stale
+     */
+    private static Set<String> loadIndex(Path archive) {
+        Path index = indexPath(archive);
+        try {
+            if (Files.exists(index) && Files.getLastModifiedTime(index).compareTo(Files.getLastModifiedTime(archive)) >= 0) {
+                return new HashSet<>(Files.readAllLines(index, StandardCharsets.UTF_8));
+            }
+            Set<String> keys = readRequestKeys(archive);
+            Files.write(index, keys.stream().sorted().toList(), StandardCharsets.UTF_8);
+            logger.info("Built HAR index {} with {} requests", index, keys.size());
+            return keys;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to index HAR " + archive, e);
+        }
+    }
+
+    /**
+     * Stream the HAR's entries and collect "METHOD URL" of every request, without loading bodies
+     */
+    private static Set<String> readRequestKeys(Path archive) throws IOException {
+        Set<String> keys = new HashSet<>();
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            ZipEntry harEntry = zip.stream()
+                    .filter(entry -> entry.getName().endsWith(".har"))
+                    .findFirst()
+                    .orElseThrow(() -> new IOException("No .har entry in " + archive));
+            try (InputStream in = zip.getInputStream(harEntry);
+                 JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                if (!enter(reader, List.of("log", "entries"))) {
+                    return keys;
+                }
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if ("request".equals(reader.nextName())) {
+                            keys.add(readRequestKey(reader));
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static String readRequestKey(JsonReader reader) throws IOException {
+        String method = "GET";
+        String url = "";
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("method".equals(name)) {
+                method = reader.nextString();
+            } else if ("url".equals(name)) {
+                url = stripFragment(reader.nextString());
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return method + " " + url;
+    }
+
+    /**
+     * Move the reader into the value at a path of object keys
+     * @return true if the path was found
+     */
+    private static boolean enter(JsonReader reader, List<String> path) throws IOException {
+        for (String key : path) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                return false;
+            }
+            reader.beginObject();
+            boolean found = false;
+            while (reader.hasNext()) {
+                if (key.equals(reader.nextName())) {
+                    found = true;
+                    break;
+                }
+                reader.skipValue();
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String stripFragment(String url) {
+        int hash = url.indexOf('#');
+        return hash < 0 ? url : url.substring(0, hash);
+    }
+
+    private static Path archivePath(String featureUri) {
+        String fileName = featureUri.substring(featureUri.lastIndexOf('/') + 1).replace(".feature", "");
+        return directory.resolve(fileName + ".har.zip");
+    }
+
+    private static Path indexPath(Path archive) {
+        return archive.resolveSibling(archive.getFileName().toString().replace(".har.zip", ".urls"));
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value, E defaultValue) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase().replace('-', '_').replace("404", "NOT_FOUND"));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return defaultValue;
+        }
+    }
+}
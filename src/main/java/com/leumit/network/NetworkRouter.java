@@ -0,0 +1,143 @@
+package com.leumit.network;
+
+import com.leumit.config.ConfigManager;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Request;
+import com.microsoft.playwright.Response;
+import com.microsoft.playwright.Route;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * NetworkRouter - Installs routing profiles on pages through page.route
+ * Pages are pooled before it is known which scenario will use them, so the profile is
+ * installed when the page is created and switched when a scenario takes the page.
+ * The FULL profile installs no route at all, so it adds no overhead per request.
+ */
+public class NetworkRouter {
+    private static final Logger logger = LoggerFactory.getLogger(NetworkRouter.class);
+    private static final String ALL_URLS = "**/*";
+    private static final RoutingStats stats = new RoutingStats();
+    private static final Map<Page, Consumer<Route>> installedRoutes = new ConcurrentHashMap<>();
+    private static final Map<Page, RoutingProfile> installedProfiles = new ConcurrentHashMap<>();
+    // Follows configuration reloads; pages created afterwards and scenarios without a routing tag use the new one
+    private static volatile RoutingProfile defaultProfile =
+            RoutingProfile.fromConfig(ConfigManager.getInstance().getProperty("routingProfile", "full"));
+    private static final List<String> firstPartyDomains = loadFirstPartyDomains();
+
+    static {
+        ConfigManager.getInstance().addReloadListener(snapshot -> {
+            RoutingProfile reloaded = RoutingProfile.fromConfig(snapshot.get("routingProfile"));
+            if (reloaded != defaultProfile) {
+                logger.info("Default routing profile changed to {}", reloaded);
+                defaultProfile = reloaded;
+            }
+        });
+    }
+
+    /**
+     * Prepare a new page: install the default profile and observe response sizes
+     * @param page Newly created page
+     */
+    public static void install(Page page) {
+        page.onResponse(NetworkRouter::recordResponse);
+        page.onClose(closed -> {
+            installedRoutes.remove(closed);
+            installedProfiles.remove(closed);
+        });
+        apply(page, defaultProfile);
+    }
+
+    /**
+     * Switch a page to a routing profile, replacing the one installed before
+     * @param page Page to route
+     * @param profile Routing profile
+     */
+    public static void apply(Page page, RoutingProfile profile) {
+        if (installedProfiles.get(page) == profile) {
+            return;
+        }
+        Consumer<Route> previous = installedRoutes.remove(page);
+        if (previous != null) {
+            page.unroute(ALL_URLS, previous);
+        }
+        installedProfiles.put(page, profile);
+        if (profile != RoutingProfile.FULL) {
+            Consumer<Route> handler = route -> handle(route, profile);
+            page.route(ALL_URLS, handler);
+            installedRoutes.put(page, handler);
+        }
+        logger.debug("Routing profile {} applied to page", profile);
+    }
+
+    public static RoutingProfile getDefaultProfile() {
+        return defaultProfile;
+    }
+
+    public static RoutingStats getStats() {
+        return stats;
+    }
+
+    private static void handle(Route route, RoutingProfile profile) {
+        Request request = route.request();
+        stats.recordRouted();
+        if (profile.blocks(request.resourceType(), getHost(request.url()), firstPartyDomains)) {
+            stats.recordBlocked(request.resourceType());
+            route.abort("blockedbyclient");
+        } else {
+            // Leave the request to routes installed earlier, or to the network
+            route.fallback();
+        }
+    }
+
+    private static void recordResponse(Response response) {
+        String length = response.headers().get("content-length");
+        if (length != null) {
+            try {
+                stats.recordResponse(response.request().resourceType(), Long.parseLong(length));
+            } catch (NumberFormatException e) {
+                logger.debug("Invalid content-length: {}", length);
+            }
+        }
+    }
+
+    private static String getHost(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host.toLowerCase() : "";
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    /**
+     * First-party domains from firstPartyDomains, or the host of baseUrl without www
+     */
+    private static List<String> loadFirstPartyDomains() {
+        ConfigManager config = ConfigManager.getInstance();
+        String configured = config.getProperty("firstPartyDomains", "");
+        List<String> domains = new ArrayList<>();
+        if (!configured.isBlank()) {
+            Arrays.stream(configured.split(",")).map(String::trim).filter(d -> !d.isEmpty()).forEach(domains::add);
+        } else {
+            String host = getHost(config.getProperty("baseUrl", ""));
+            if (!host.isEmpty()) {
+                domains.add(host.startsWith("www.") ? host.substring(4) : host);
+            }
+        }
+        // Site URLs are rewritten to the loopback stand-in, which is first-party as well
+        if (config.getBooleanProperty("standinEnabled", false)) {
+            domains.add("127.0.0.1");
+            domains.add("localhost");
+        }
+        return domains;
+    }
+}
@@ -0,0 +1,98 @@
+package com.leumit.network;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * RoutingProfile - Named set of rules deciding which requests a page may make
+ */
+public enum RoutingProfile {
+    /**
+     * Everything is loaded, as for a real user
+     */
+    FULL,
+    /**
+     * Only what functional checks need: no images, media, fonts or analytics and tag managers
+     */
+    FUNCTIONAL,
+    /**
+     * Only requests to first-party domains
+     */
+    NO_THIRD_PARTY;
+
+    private static final Set<String> FUNCTIONAL_BLOCKED_TYPES = Set.of("image", "media", "font");
+
+    // Analytics, advertising and tag management hosts that never matter for functional checks
+    private static final List<String> TRACKING_HOSTS = List.of(
+            "google-analytics.com", "googletagmanager.com", "googleadservices.com", "doubleclick.net",
+            "googlesyndication.com", "facebook.net", "facebook.com", "connect.facebook.net", "hotjar.com",
+            "clarity.ms", "bing.com", "linkedin.com", "licdn.com", "tiktok.com", "taboola.com", "outbrain.com",
+            "adnxs.com", "criteo.com", "yahoo.com", "glassbox-hq.com", "glassboxdigital.io");
+
+    /**
+     * Get the profile for a scenario from its tags
+     * @param tags Scenario tags, e.g. @lean or @no-third-party
+     * @param defaultProfile Profile used when no routing tag is present
+     * @return Routing profile
+     */
+    public static RoutingProfile fromTags(Collection<String> tags, RoutingProfile defaultProfile) {
+        if (tags.contains("@no-third-party")) {
+            return NO_THIRD_PARTY;
+        }
+        if (tags.contains("@lean")) {
+            return FUNCTIONAL;
+        }
+        if (tags.contains("@full-network")) {
+            return FULL;
+        }
+        return defaultProfile;
+    }
+
+    /**
+     * Get the profile from a configuration value such as "functional" or "no-third-party"
+     * @param value Configuration value
+     * @return Routing profile, FULL if the value is unknown
+     */
+    public static RoutingProfile fromConfig(String value) {
+        if (value == null || value.isBlank()) {
+            return FULL;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            return FULL;
+        }
+    }
+
+    /**
+     * Decide whether a request is blocked
+     * @param resourceType Playwright resource type, e.g. image or script
+     * @param host Host of the request
+     * @param firstPartyDomains Domains belonging to the site under test
+     * @return true if the request should be aborted
+     */
+    public boolean blocks(String resourceType, String host, Collection<String> firstPartyDomains) {
+        // The page itself is never blocked, whatever its host
+        if ("document".equals(resourceType) && this != NO_THIRD_PARTY) {
+            return false;
+        }
+        return switch (this) {
+            case FULL -> false;
+            case FUNCTIONAL -> FUNCTIONAL_BLOCKED_TYPES.contains(resourceType) || matchesAny(host, TRACKING_HOSTS);
+            case NO_THIRD_PARTY -> !matchesAny(host, firstPartyDomains);
+        };
+    }
+
+    /**
+     * Whether the host is one of the domains or a subdomain of one
+     */
+    private static boolean matchesAny(String host, Collection<String> domains) {
+        for (String domain : domains) {
+            if (host.equals(domain) || host.endsWith("." + domain)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
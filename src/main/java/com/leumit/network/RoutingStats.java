@@ -0,0 +1,96 @@
+package com.leumit.network;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RoutingStats - Run-wide counters of routed and blocked requests
+ * Blocked requests are never downloaded, so their size is estimated from the mean size of
+ * responses of the same resource type that were let through, or a typical size if none were seen.
+ */
+public class RoutingStats {
+    private static final Map<String, Long> TYPICAL_SIZES = Map.of(
+            "image", 40_000L,
+            "font", 35_000L,
+            "media", 500_000L,
+            "script", 60_000L,
+            "stylesheet", 30_000L);
+    private static final long DEFAULT_TYPICAL_SIZE = 10_000L;
+
+    private final LongAdder routed = new LongAdder();
+    private final Map<String, LongAdder> blockedByType = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> responseCountByType = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> responseBytesByType = new ConcurrentHashMap<>();
+
+    /**
+     * Count a request that passed through a routing profile
+     */
+    public void recordRouted() {
+        routed.increment();
+    }
+
+    /**
+     * Count a blocked request
+     * @param resourceType Resource type of the request
+     */
+    public void recordBlocked(String resourceType) {
+        blockedByType.computeIfAbsent(resourceType, type -> new LongAdder()).increment();
+    }
+
+    /**
+     * Record the size of a response that was let through
+     * @param resourceType Resource type of the request
+     * @param bytes Response body size from the Content-Length header
+     */
+    public void recordResponse(String resourceType, long bytes) {
+        responseCountByType.computeIfAbsent(resourceType, type -> new LongAdder()).increment();
+        responseBytesByType.computeIfAbsent(resourceType, type -> new LongAdder()).add(bytes);
+    }
+
+    public long getRoutedCount() {
+        return routed.sum();
+    }
+
+    public long getBlockedCount() {
+        return blockedByType.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * Blocked requests per resource type
+     * @return Resource type to blocked count, sorted by type
+     */
+    public Map<String, Long> getBlockedByType() {
+        Map<String, Long> result = new TreeMap<>();
+        blockedByType.forEach((type, count) -> result.put(type, count.sum()));
+        return result;
+    }
+
+    /**
+     * Estimate the bytes that blocked requests would have downloaded
+     * @return Estimated bytes saved
+     */
+    public long getEstimatedBlockedBytes() {
+        long total = 0;
+        for (Map.Entry<String, Long> entry : getBlockedByType().entrySet()) {
+            total += entry.getValue() * getMeanSize(entry.getKey());
+        }
+        return total;
+    }
+
+    private long getMeanSize(String resourceType) {
+        LongAdder count = responseCountByType.get(resourceType);
+        LongAdder bytes = responseBytesByType.get(resourceType);
+        if (count == null || bytes == null || count.sum() == 0) {
+            return TYPICAL_SIZES.getOrDefault(resourceType, DEFAULT_TYPICAL_SIZE);
+        }
+        return bytes.sum() / count.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("routed=%d, blocked=%d %s, estimatedBlockedBytes=%d KB",
+                getRoutedCount(), getBlockedCount(), getBlockedByType(), getEstimatedBlockedBytes() / 1024);
+    }
+}
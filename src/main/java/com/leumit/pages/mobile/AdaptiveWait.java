@@ -0,0 +1,253 @@
+package com.leumit.pages.mobile;
+
+import com.leumit.config.ConfigManager;
+import com.leumit.config.ConfigSnapshot;
+import com.leumit.performance.LatencyHistogram;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * AdaptiveWait - Waits for mobile conditions with polling and timeouts learned per locator
+ * A fixed 30 s wait with 500 ms polling makes every failure cost 30 s and every fast screen up to
+ * half a second. Here each locator keeps the times its waits took to be satisfied during the run:
+ * polling starts at a quarter of the median and backs off exponentially with jitter, and once
+ * mobileWaitMinSamples waits succeeded the timeout is mobileWaitTimeoutMultiplier times their p99,
+ * kept between mobileWaitMinTimeoutMs and mobileWaitMaxTimeoutSeconds. A timeout doubles the locator's
+ * timeout for its next waits, up to the maximum, so a screen that became slower is not failed on a
+ * timeout learned while it was fast; each satisfied wait halves that widening again.
+ * The mobileWait settings follow configuration reloads; the histograms keep the maximum they were created with.
+ */
+public class AdaptiveWait {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveWait.class);
+    private static volatile Settings defaultSettings = Settings.from(ConfigManager.getInstance().getSnapshot());
+    private static final long MIN_POLL_MS = 25;
+
+    static {
+        ConfigManager.getInstance().addReloadListener(snapshot -> defaultSettings = Settings.from(snapshot));
+    }
+
+    // History of all scenarios of the run, per locator
+    private static final Map<String, LocatorStats> sharedStats = new ConcurrentHashMap<>();
+
+    private final WebDriver driver;
+    private final Supplier<Settings> settings;
+    private final Map<String, LocatorStats> statsByLocator;
+
+    /**
+     * Wait settings
+     *
+     * @param maxTimeoutMs Timeout until enough waits succeeded, and the upper bound of learned timeouts
+     * @param minTimeoutMs Lower bound of learned timeouts
+     * @param timeoutMultiplier Learned timeout as a multiple of the p99 time to satisfy
+     * @param minSamples Satisfied waits needed before the timeout is learned
+     * @param maxPollMs Upper bound of the poll interval
+     */
+    record Settings(long maxTimeoutMs, long minTimeoutMs, int timeoutMultiplier, int minSamples, long maxPollMs) {
+
+        /**
+         * Read the mobileWait settings of a configuration snapshot
+         * @param snapshot Configuration snapshot
+         * @return Settings, with defaults for missing values
+         */
+        static Settings from(ConfigSnapshot snapshot) {
+            return new Settings(
+                    TimeUnit.SECONDS.toMillis(Objects.requireNonNullElse(snapshot.getInt("mobileWaitMaxTimeoutSeconds"), 30)),
+                    Objects.requireNonNullElse(snapshot.getInt("mobileWaitMinTimeoutMs"), 2000),
+                    Objects.requireNonNullElse(snapshot.getInt("mobileWaitTimeoutMultiplier"), 3),
+                    Objects.requireNonNullElse(snapshot.getInt("mobileWaitMinSamples"), 5),
+                    Objects.requireNonNullElse(snapshot.getInt("mobileWaitMaxPollMs"), 1000));
+        }
+    }
+
+    /**
+     * Constructor for AdaptiveWait, sharing the wait history of the run
+     * @param driver Driver the conditions are evaluated with
+     */
+    public AdaptiveWait(WebDriver driver) {
+        this(driver, () -> defaultSettings, sharedStats);
+    }
+
+    /**
+     * Constructor for AdaptiveWait with its own settings and a wait history of its own
+     * @param driver Driver the conditions are evaluated with
+     * @param settings Wait settings
+     */
+    AdaptiveWait(WebDriver driver, Settings settings) {
+        this(driver, () -> settings, new ConcurrentHashMap<>());
+    }
+
+    private AdaptiveWait(WebDriver driver, Supplier<Settings> settings, Map<String, LocatorStats> statsByLocator) {
+        this.driver = driver;
+        this.settings = settings;
+        this.statsByLocator = statsByLocator;
+    }
+
+    /**
+     * Wait until a condition on a located element is satisfied
+     * @param by Locator the wait history is kept under
+     * @param condition Condition returning a non-null, non-false value once satisfied
+     * @return Value of the satisfied condition
+     * @throws TimeoutException if the condition is not satisfied within the locator's timeout
+     */
+    public <T> T until(By by, Function<? super WebDriver, T> condition) {
+        return until(by.toString(), condition);
+    }
+
+    /**
+     * Wait until a condition is satisfied
+     * @param key Name the wait history is kept under, e.g. the locator
+     * @param condition Condition returning a non-null, non-false value once satisfied
+     * @return Value of the satisfied condition
+     * @throws TimeoutException if the condition is not satisfied within the key's timeout
+     */
+    public <T> T until(String key, Function<? super WebDriver, T> condition) {
+        LocatorStats stats = statsOf(key);
+        long timeoutMs = stats.timeoutMs();
+        long pollMs = stats.initialPollMs();
+        long start = System.nanoTime();
+        int attempts = 0;
+        RuntimeException lastError = null;
+        while (true) {
+            attempts++;
+            try {
+                T result = condition.apply(driver);
+                if (result != null && !Boolean.FALSE.equals(result)) {
+                    long elapsedMs = elapsedMs(start);
+                    stats.recordSatisfied(elapsedMs, attempts);
+                    logger.debug("Wait for {} satisfied after {} attempts in {} ms", key, attempts, elapsedMs);
+                    return result;
+                }
+            } catch (NotFoundException | StaleElementReferenceException e) {
+                lastError = e;
+            }
+            long elapsedMs = elapsedMs(start);
+            if (elapsedMs >= timeoutMs) {
+                stats.recordTimeout(attempts, timeoutMs);
+                throw new TimeoutException(String.format("Wait for %s not satisfied after %d attempts in %d ms",
+                        key, attempts, elapsedMs), lastError);
+            }
+            // Equal jitter: keep half the interval, randomize the other half so devices are not polled in lockstep
+            long sleepMs = pollMs / 2 + ThreadLocalRandom.current().nextLong(pollMs / 2 + 1);
+            sleep(Math.min(sleepMs, timeoutMs - elapsedMs));
+            pollMs = Math.min(pollMs * 2, settings.get().maxPollMs());
+        }
+    }
+
+    /**
+     * Timeout the next wait for a key would use
+     * @param key Name the wait history is kept under
+     * @return Timeout in milliseconds
+     */
+    long timeoutMs(String key) {
+        return statsOf(key).timeoutMs();
+    }
+
+    private LocatorStats statsOf(String key) {
+        return statsByLocator.computeIfAbsent(key, k -> new LocatorStats(settings));
+    }
+
+    /**
+     * Wait statistics of this run
+     * @return Summary of waits, timeouts, attempts and time to satisfy over all locators
+     */
+    public static String getStats() {
+        LatencyHistogram satisfied = new LatencyHistogram(defaultSettings.maxTimeoutMs());
+        long waits = 0;
+        long timeouts = 0;
+        long attempts = 0;
+        for (LocatorStats stats : sharedStats.values()) {
+            synchronized (stats) {
+                satisfied.add(stats.satisfiedMs);
+            }
+            waits += stats.waits.sum();
+            timeouts += stats.timeouts.sum();
+            attempts += stats.attempts.sum();
+        }
+        return String.format("locators=%d, waits=%d, timeouts=%d, avgAttempts=%.1f, p50=%dms, p95=%dms, max=%dms",
+                sharedStats.size(), waits, timeouts, waits == 0 ? 0 : (double) attempts / waits,
+                satisfied.getValueAtPercentile(50), satisfied.getValueAtPercentile(95), satisfied.getMaxValue());
+    }
+
+    private static long elapsedMs(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(Math.max(0, millis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted while waiting", e);
+        }
+    }
+
+    /**
+     * LocatorStats - Wait history of one locator; the histogram is not thread safe and is guarded by this
+     */
+    private static final class LocatorStats {
+        private final Supplier<Settings> settings;
+        private final LatencyHistogram satisfiedMs;
+        private final LongAdder waits = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder attempts = new LongAdder();
+        // Lower bound of the timeout raised by timeouts, halved by each satisfied wait
+        private long timeoutFloorMs;
+
+        private LocatorStats(Supplier<Settings> settings) {
+            this.settings = settings;
+            this.satisfiedMs = new LatencyHistogram(settings.get().maxTimeoutMs());
+        }
+
+        private synchronized void recordSatisfied(long elapsedMs, int attemptCount) {
+            satisfiedMs.recordValue(elapsedMs);
+            timeoutFloorMs /= 2;
+            waits.increment();
+            attempts.add(attemptCount);
+        }
+
+        /**
+         * Count a timeout and double the timeout the locator timed out with, up to the maximum
+         */
+        private synchronized void recordTimeout(int attemptCount, long timedOutAfterMs) {
+            timeoutFloorMs = Math.min(settings.get().maxTimeoutMs(), Math.max(timeoutFloorMs, timedOutAfterMs * 2));
+            waits.increment();
+            timeouts.increment();
+            attempts.add(attemptCount);
+        }
+
+        /**
+         * Timeout from the history; the full timeout until enough waits succeeded
+         */
+        private synchronized long timeoutMs() {
+            Settings current = settings.get();
+            if (satisfiedMs.getTotalCount() < current.minSamples()) {
+                return current.maxTimeoutMs();
+            }
+            long derived = satisfiedMs.getValueAtPercentile(99) * current.timeoutMultiplier();
+            long timeout = Math.max(current.minTimeoutMs(), Math.max(timeoutFloorMs, derived));
+            return Math.min(current.maxTimeoutMs(), timeout);
+        }
+
+        /**
+         * First poll interval: a quarter of the median time to satisfy, so fast screens are seen quickly
+         */
+        private synchronized long initialPollMs() {
+            long median = satisfiedMs.getValueAtPercentile(50);
+            return Math.min(settings.get().maxPollMs(), Math.max(MIN_POLL_MS, median / 4));
+        }
+    }
+}
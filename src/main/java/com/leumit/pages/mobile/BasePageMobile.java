@@ -1,7 +1,7 @@
 package com.leumit.pages.mobile;
 
-import com.aventstack.extentreports.ExtentTest;
 import com.leumit.context.TestContext;
+import com.leumit.reporting.ReportNode;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.ios.IOSDriver;
@@ -10,11 +10,12 @@ import org.openqa.selenium.By;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.PageFactory;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Base class for all mobile page objects
@@ -23,9 +24,11 @@ public abstract class BasePageMobile {
     protected static final Logger logger = LoggerFactory.getLogger(BasePageMobile.class);
     protected final AppiumDriver driver;
     protected final TestContext context;
-    protected final ExtentTest reporter;
-    protected final WebDriverWait wait;
+    protected final ReportNode reporter;
+    protected final AdaptiveWait wait;
     protected final boolean isAndroid;
+    // Page source snapshot shared by all page objects of the scenario, null unless mobileSnapshotMode is on
+    protected final PageSourceCache snapshots;
 
     /**
      * Constructor for BasePageMobile
@@ -34,14 +37,24 @@ public abstract class BasePageMobile {
     public BasePageMobile(AppiumDriver driver) {
         this.driver = driver;
         this.context = TestContext.getInstance();
-        this.reporter = context.getExtentTest();
-        this.wait = new WebDriverWait(driver, Duration.ofSeconds(30));
+        this.reporter = context.getReportNode();
+        this.wait = new AdaptiveWait(driver);
         this.isAndroid = driver instanceof AndroidDriver;
+        this.snapshots = PageSourceCache.isEnabled() ? pageSourceCacheFor(driver) : null;
         
         // Initialize elements with AppiumFieldDecorator
         PageFactory.initElements(new AppiumFieldDecorator(driver), this);
     }
 
+    private PageSourceCache pageSourceCacheFor(AppiumDriver driver) {
+        PageSourceCache cache = context.getPageSourceCache();
+        if (cache == null || !cache.isFor(driver)) {
+            cache = new PageSourceCache(driver);
+            context.setPageSourceCache(cache);
+        }
+        return cache;
+    }
+
     /**
      * Check if an element is visible
      * @param by Element locator
@@ -49,13 +62,85 @@ public abstract class BasePageMobile {
      */
     public boolean isElementVisible(By by) {
         try {
-            return wait.until(ExpectedConditions.visibilityOfElementLocated(by)) != null;
+            waitUntilVisible(by);
+            return true;
         } catch (Exception e) {
             logger.error("Element not visible: {}", by, e);
             return false;
         }
     }
 
+    /**
+     * Check several elements against one screen state, without waiting
+     * In snapshot mode all id, accessibility id and XPath locators are answered from a single page source
+     * @param locators Element locators
+     * @return Visibility per locator, in the given order
+     */
+    public Map<By, Boolean> areElementsVisible(By... locators) {
+        Map<By, Boolean> result = new LinkedHashMap<>();
+        PageSourceSnapshot snapshot = null;
+        for (By by : locators) {
+            try {
+                if (usesSnapshot(by)) {
+                    if (snapshot == null) {
+                        snapshot = snapshots.get();
+                    }
+                    result.put(by, snapshot.isVisible(by));
+                } else {
+                    result.put(by, driver.findElements(by).stream().anyMatch(WebElement::isDisplayed));
+                }
+            } catch (Exception e) {
+                logger.error("Failed to check visibility of element: {}", by, e);
+                result.put(by, false);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Wait until an element is visible, from page source snapshots when snapshot mode is on
+     * @param by Element locator
+     * @throws org.openqa.selenium.TimeoutException if the element does not become visible in time
+     */
+    protected void waitUntilVisible(By by) {
+        if (usesSnapshot(by)) {
+            wait.until(by, d -> inSnapshot(snapshot -> snapshot.isVisible(by) ? Boolean.TRUE : null));
+        } else {
+            wait.until(by, ExpectedConditions.visibilityOfElementLocated(by));
+        }
+    }
+
+    /**
+     * Answer a query from the current snapshot; an unanswered query drops it so the next poll sees a fresh screen
+     */
+    private <T> T inSnapshot(Function<PageSourceSnapshot, T> query) {
+        T result = query.apply(snapshots.get());
+        if (result == null) {
+            snapshots.invalidate();
+        }
+        return result;
+    }
+
+    private boolean usesSnapshot(By by) {
+        if (snapshots == null) {
+            return false;
+        }
+        if (PageSourceSnapshot.supports(by)) {
+            return true;
+        }
+        snapshots.recordLiveQuery();
+        return false;
+    }
+
+    /**
+     * Drop the page source snapshot after an action that may change the screen
+     */
+    protected void invalidateSnapshot() {
+        if (snapshots != null) {
+            snapshots.invalidate();
+        }
+    }
+
     /**
      * Click on an element
      * @param by Element locator
@@ -64,9 +149,11 @@ public abstract class BasePageMobile {
     public BasePageMobile click(By by) {
         try {
             logger.info("Clicking element: {}", by);
-            wait.until(ExpectedConditions.elementToBeClickable(by)).click();
+            wait.until(by, ExpectedConditions.elementToBeClickable(by)).click();
         } catch (Exception e) {
             logger.error("Failed to click element: {}", by, e);
+        } finally {
+            invalidateSnapshot();
         }
         return this;
     }
@@ -80,11 +167,13 @@ public abstract class BasePageMobile {
     public BasePageMobile sendKeys(By by, String text) {
         try {
             logger.info("Sending text to element: {}", by);
-            WebElement element = wait.until(ExpectedConditions.visibilityOfElementLocated(by));
+            WebElement element = wait.until(by, ExpectedConditions.visibilityOfElementLocated(by));
             element.clear();
             element.sendKeys(text);
         } catch (Exception e) {
             logger.error("Failed to send keys to element: {}", by, e);
+        } finally {
+            invalidateSnapshot();
         }
         return this;
     }
@@ -96,7 +185,10 @@ public abstract class BasePageMobile {
      */
     public String getText(By by) {
         try {
-            return wait.until(ExpectedConditions.visibilityOfElementLocated(by)).getText();
+            if (usesSnapshot(by)) {
+                return wait.until(by, d -> inSnapshot(snapshot -> snapshot.isVisible(by) ? snapshot.getText(by) : null));
+            }
+            return wait.until(by, ExpectedConditions.visibilityOfElementLocated(by)).getText();
         } catch (Exception e) {
             logger.error("Failed to get text from element: {}", by, e);
             return "";
@@ -135,6 +227,8 @@ public abstract class BasePageMobile {
             logger.info("Launched app: {}", appPackage);
         } catch (Exception e) {
             logger.error("Failed to launch app: {}", appPackage, e);
+        } finally {
+            invalidateSnapshot();
         }
     }
 
@@ -155,6 +249,8 @@ public abstract class BasePageMobile {
             logger.info("Closed app: {}", packageName);
         } catch (Exception e) {
             logger.error("Failed to close app", e);
+        } finally {
+            invalidateSnapshot();
         }
     }
 } 
\ No newline at end of file
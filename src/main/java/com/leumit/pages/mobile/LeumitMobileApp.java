@@ -5,7 +5,6 @@ import io.appium.java_client.pagefactory.AndroidFindBy;
 import io.appium.java_client.pagefactory.iOSXCUITFindBy;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -87,9 +86,9 @@ public class LeumitMobileApp extends BasePageMobile {
             long startTime = System.currentTimeMillis();
             
             // First wait for splash screen
-            wait.until(ExpectedConditions.visibilityOfElementLocated(SPLASH_SCREEN));
+            waitUntilVisible(SPLASH_SCREEN);
             // Then wait for home screen
-            wait.until(ExpectedConditions.visibilityOfElementLocated(HOME_SCREEN));
+            waitUntilVisible(HOME_SCREEN);
             
             lastLoadTime = System.currentTimeMillis() - startTime;
             logger.info("App fully loaded in {} ms", lastLoadTime);
@@ -0,0 +1,113 @@
+package com.leumit.pages.mobile;
+
+import com.leumit.config.ConfigManager;
+import com.leumit.config.ConfigSnapshot;
+import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.android.AndroidDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PageSourceCache - The page source snapshot of a scenario's current screen state
+ * Each element query on a real device is several round-trips of 100-300 ms; with mobileSnapshotMode
+ * the page source is fetched once per screen state and queries are answered from it. Any action on
+ * the app invalidates the snapshot, and so does its age passing mobileSnapshotMaxAgeMs, because the
+ * app can change the screen by itself, e.g. when a splash screen ends.
+ * Both settings follow configuration reloads.
+ */
+public class PageSourceCache {
+    private static final Logger logger = LoggerFactory.getLogger(PageSourceCache.class);
+    private static volatile boolean enabled;
+    private static volatile long maxAgeNanos;
+
+    static {
+        applySettings(ConfigManager.getInstance().getSnapshot());
+        ConfigManager.getInstance().addReloadListener(PageSourceCache::applySettings);
+    }
+
+    // Statistics of all scenarios of the run
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder fetches = new LongAdder();
+    private static final LongAdder invalidations = new LongAdder();
+    private static final LongAdder liveQueries = new LongAdder();
+
+    private final AppiumDriver driver;
+    private PageSourceSnapshot snapshot;
+    private long fetchedAt;
+
+    /**
+     * Constructor for PageSourceCache
+     * @param driver Session whose page source is cached
+     */
+    public PageSourceCache(AppiumDriver driver) {
+        this.driver = driver;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    private static void applySettings(ConfigSnapshot snapshot) {
+        enabled = Objects.requireNonNullElse(snapshot.getBoolean("mobileSnapshotMode"), false);
+        maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(
+                Objects.requireNonNullElse(snapshot.getInt("mobileSnapshotMaxAgeMs"), 2000));
+    }
+
+    /**
+     * Check whether this cache belongs to a session
+     * @param candidate Session to check
+     * @return true if the cache holds page sources of that session
+     */
+    public boolean isFor(AppiumDriver candidate) {
+        return driver == candidate;
+    }
+
+    /**
+     * Get the snapshot of the current screen state, fetching the page source if there is none
+     * @return Parsed and indexed snapshot
+     */
+    public PageSourceSnapshot get() {
+        if (snapshot != null && System.nanoTime() - fetchedAt < maxAgeNanos) {
+            hits.increment();
+            return snapshot;
+        }
+        long start = System.nanoTime();
+        snapshot = new PageSourceSnapshot(driver.getPageSource(), driver instanceof AndroidDriver);
+        fetchedAt = System.nanoTime();
+        fetches.increment();
+        logger.debug("Fetched page source snapshot in {} ms", TimeUnit.NANOSECONDS.toMillis(fetchedAt - start));
+        return snapshot;
+    }
+
+    /**
+     * Drop the snapshot, the screen state has changed or is about to
+     */
+    public void invalidate() {
+        if (snapshot != null) {
+            snapshot = null;
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * Count a query that had to go to the device because its locator cannot be evaluated on a snapshot
+     */
+    public void recordLiveQuery() {
+        liveQueries.increment();
+    }
+
+    /**
+     * Snapshot statistics of this run
+     * @return Summary of hits, fetches and the hit rate
+     */
+    public static String getStats() {
+        long total = hits.sum() + fetches.sum();
+        return String.format("hits=%d, fetches=%d, hitRate=%.2f, invalidations=%d, liveQueries=%d",
+                hits.sum(), fetches.sum(), total == 0 ? 0 : (double) hits.sum() / total,
+                invalidations.sum(), liveQueries.sum());
+    }
+}
@@ -0,0 +1,180 @@
+package com.leumit.pages.mobile;
+
+import org.openqa.selenium.By;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PageSourceSnapshot - One screen state of the app, parsed from the Appium page source
+ * Elements are indexed by id and accessibility id in a single pass, so those locators are map lookups;
+ * XPath is evaluated against the parsed tree. Other locator strategies are not supported and must be
+ * queried live.
+ */
+public class PageSourceSnapshot {
+    private final Document document;
+    private final boolean android;
+    private final Map<String, List<Element>> byId = new HashMap<>();
+    private final Map<String, List<Element>> byAccessibilityId = new HashMap<>();
+
+    /**
+     * Locator strategies a snapshot can evaluate
+     */
+    private enum Strategy {
+        ID, ACCESSIBILITY_ID, XPATH
+    }
+
+    /**
+     * A supported locator split into its strategy and value
+     */
+    private record Locator(Strategy strategy, String value) {
+    }
+
+    /**
+     * Parse and index a page source
+     * @param pageSource XML page source returned by Appium
+     * @param android Whether the source comes from UiAutomator2 rather than XCUITest
+     */
+    public PageSourceSnapshot(String pageSource, boolean android) {
+        this.document = parse(pageSource);
+        this.android = android;
+        NodeList elements = document.getElementsByTagName("*");
+        for (int i = 0; i < elements.getLength(); i++) {
+            Element element = (Element) elements.item(i);
+            if (android) {
+                // resource-id is "package:id/name", By.id may give either form
+                String resourceId = element.getAttribute("resource-id");
+                if (!resourceId.isEmpty()) {
+                    index(byId, resourceId, element);
+                    int slash = resourceId.indexOf(":id/");
+                    if (slash >= 0) {
+                        index(byId, resourceId.substring(slash + 4), element);
+                    }
+                }
+                index(byAccessibilityId, element.getAttribute("content-desc"), element);
+            } else {
+                // XCUITest uses the name attribute for both id and accessibility id
+                index(byId, element.getAttribute("name"), element);
+                index(byAccessibilityId, element.getAttribute("name"), element);
+            }
+        }
+    }
+
+    /**
+     * Check whether a locator can be evaluated against a snapshot
+     * @param by Element locator
+     * @return true for id, accessibility id and XPath locators
+     */
+    public static boolean supports(By by) {
+        return toLocator(by) != null;
+    }
+
+    /**
+     * Check whether a located element is present and displayed in this screen state
+     * @param by Supported element locator
+     * @return true if the first matching element is displayed
+     */
+    public boolean isVisible(By by) {
+        Element element = find(by);
+        return element != null && isDisplayed(element);
+    }
+
+    /**
+     * Get the text of a located element in this screen state
+     * @param by Supported element locator
+     * @return Text of the first matching element, or null if there is none
+     */
+    public String getText(By by) {
+        Element element = find(by);
+        if (element == null) {
+            return null;
+        }
+        if (android) {
+            return element.getAttribute("text");
+        }
+        // XCUITest reports the text of inputs as value and of labels as label
+        String value = element.getAttribute("value");
+        return value.isEmpty() ? element.getAttribute("label") : value;
+    }
+
+    private Element find(By by) {
+        Locator locator = toLocator(by);
+        if (locator == null) {
+            throw new IllegalArgumentException("Locator cannot be evaluated against a page source: " + by);
+        }
+        return switch (locator.strategy()) {
+            case ID -> first(byId.get(locator.value()));
+            case ACCESSIBILITY_ID -> first(byAccessibilityId.get(locator.value()));
+            case XPATH -> evaluate(locator.value());
+        };
+    }
+
+    private Element evaluate(String expression) {
+        try {
+            // XPath objects are not thread-safe and cheap to create
+            Node node = (Node) XPathFactory.newInstance().newXPath()
+                    .evaluate(expression, document, XPathConstants.NODE);
+            return node instanceof Element element ? element : null;
+        } catch (XPathExpressionException e) {
+            throw new IllegalArgumentException("Invalid XPath: " + expression, e);
+        }
+    }
+
+    private boolean isDisplayed(Element element) {
+        String displayed = element.getAttribute(android ? "displayed" : "visible");
+        return displayed.isEmpty() || Boolean.parseBoolean(displayed);
+    }
+
+    /**
+     * Split a locator by its description, e.g. "By.id: home" or "AppiumBy.accessibilityId: home"
+     */
+    private static Locator toLocator(By by) {
+        String description = by.toString();
+        int colon = description.indexOf(": ");
+        int dot = description.indexOf('.');
+        if (colon < 0 || dot < 0 || dot > colon) {
+            return null;
+        }
+        String value = description.substring(colon + 2);
+        return switch (description.substring(dot + 1, colon)) {
+            case "id" -> new Locator(Strategy.ID, value);
+            case "accessibilityId" -> new Locator(Strategy.ACCESSIBILITY_ID, value);
+            case "xpath" -> new Locator(Strategy.XPATH, value);
+            default -> null;
+        };
+    }
+
+    private static void index(Map<String, List<Element>> index, String key, Element element) {
+        if (!key.isEmpty()) {
+            index.computeIfAbsent(key, k -> new ArrayList<>()).add(element);
+        }
+    }
+
+    private static Element first(List<Element> elements) {
+        return elements == null ? null : elements.get(0);
+    }
+
+    private static Document parse(String pageSource) {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            return factory.newDocumentBuilder().parse(new InputSource(new StringReader(pageSource)));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to parse page source", e);
+        }
+    }
+}
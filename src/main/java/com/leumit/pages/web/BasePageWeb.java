@@ -1,16 +1,49 @@
 package com.leumit.pages.web;
 
+import com.leumit.context.TestContext;
 import com.leumit.drivers.DriverManager;
+import com.leumit.performance.PageLoadMetrics;
+import com.leumit.performance.PageMetricsCollector;
+import com.leumit.server.UrlRewriter;
+import com.microsoft.playwright.Frame;
 import com.microsoft.playwright.Page;
+import com.microsoft.playwright.options.BoundingBox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * BasePageWeb - Base class for web page objects
  */
 public class BasePageWeb {
     private static final Logger logger = LoggerFactory.getLogger(BasePageWeb.class);
+    
+    // Resolves the first match of each selector with one call per frame; invalid selectors count as not found
+    private static final String PROBE_SCRIPT = """
+            selectors => selectors.map(selector => {
+              let element;
+              try {
+                element = document.querySelector(selector);
+              } catch (e) {
+                return null;
+              }
+              if (!element) return null;
+              const box = element.getBoundingClientRect();
+              const visible = box.width > 0 && box.height > 0 && getComputedStyle(element).visibility !== 'hidden';
+              return { visible, text: element.textContent, x: box.x, y: box.y, width: box.width, height: box.height };
+            })
+            """;
+    
+    // Frame each selector was last found in, per page; dropped when the page closes
+    private static final Map<Page, Map<String, Frame>> selectorFrames = new ConcurrentHashMap<>();
+    
     protected Page page;
+    private PageLoadMetrics pageLoadMetrics;
     
     /**
      * Constructor for BasePageWeb
@@ -37,7 +70,7 @@ public class BasePageWeb {
      */
     public void navigate(String url) {
         logger.info("Navigating to URL: {}", url);
-        getPage().navigate(url);
+        getPage().navigate(UrlRewriter.rewrite(url));
     }
     
     /**
@@ -54,6 +87,105 @@ public class BasePageWeb {
         }
     }
     
+    /**
+     * Probe several selectors across all frames of the page at once
+     * Each frame is asked about all selectors in one call, instead of one call per selector and frame.
+     * Frames a selector was found in are asked first; the other frames only for selectors not found
+     * visible there, since a hidden copy of an element, e.g. a template, may precede the visible one.
+     * Selectors are CSS selectors, matched with document.querySelector.
+     * @param selectors CSS selectors to probe
+     * @return Probe result per selector, in the given order: the first visible match, else the first
+     *         hidden one; NOT_FOUND if no frame matched
+     */
+    public Map<String, ElementProbe> probe(String... selectors) {
+        Page current = getPage();
+        Map<String, Frame> knownFrames = knownFramesOf(current);
+        Map<String, ElementProbe> found = new LinkedHashMap<>();
+        
+        // Selectors found before: one call per frame they were found in
+        Map<Frame, List<String>> byKnownFrame = new LinkedHashMap<>();
+        for (String selector : selectors) {
+            Frame frame = knownFrames.get(selector);
+            if (frame != null && !frame.isDetached()) {
+                byKnownFrame.computeIfAbsent(frame, key -> new ArrayList<>()).add(selector);
+            }
+        }
+        byKnownFrame.forEach((frame, frameSelectors) -> probeFrame(frame, frameSelectors, found, knownFrames));
+        
+        // The rest: every frame, main frame first, until all are found visible
+        List<String> remaining = new ArrayList<>(List.of(selectors));
+        remaining.removeIf(selector -> isFoundVisible(found, selector));
+        for (String selector : remaining) {
+            if (!found.containsKey(selector)) {
+                knownFrames.remove(selector);
+            }
+        }
+        for (Frame frame : current.frames()) {
+            if (remaining.isEmpty()) {
+                break;
+            }
+            probeFrame(frame, remaining, found, knownFrames);
+            remaining.removeIf(selector -> isFoundVisible(found, selector));
+        }
+        
+        Map<String, ElementProbe> results = new LinkedHashMap<>();
+        for (String selector : selectors) {
+            results.put(selector, found.getOrDefault(selector, ElementProbe.NOT_FOUND));
+        }
+        return results;
+    }
+    
+    private static Map<String, Frame> knownFramesOf(Page page) {
+        return selectorFrames.computeIfAbsent(page, key -> {
+            key.onClose(selectorFrames::remove);
+            return new ConcurrentHashMap<>();
+        });
+    }
+    
+    private static boolean isFoundVisible(Map<String, ElementProbe> found, String selector) {
+        ElementProbe result = found.get(selector);
+        return result != null && result.visible();
+    }
+    
+    /**
+     * Probe selectors in one frame, keeping its matches in found unless a visible one is already there,
+     * and remembering the frame of the kept matches
+     */
+    private void probeFrame(Frame frame, List<String> selectors, Map<String, ElementProbe> found,
+                            Map<String, Frame> knownFrames) {
+        Object result;
+        try {
+            result = frame.evaluate(PROBE_SCRIPT, selectors);
+        } catch (Exception e) {
+            // Frames of ads and trackers come and go while the page is probed
+            logger.debug("Failed to probe frame: {}", frame.name(), e);
+            return;
+        }
+        if (!(result instanceof List<?> values)) {
+            return;
+        }
+        for (int i = 0; i < selectors.size() && i < values.size(); i++) {
+            if (values.get(i) instanceof Map<?, ?> value) {
+                BoundingBox box = new BoundingBox();
+                box.x = number(value, "x");
+                box.y = number(value, "y");
+                box.width = number(value, "width");
+                box.height = number(value, "height");
+                String selector = selectors.get(i);
+                boolean visible = Boolean.TRUE.equals(value.get("visible"));
+                if (found.containsKey(selector) && !visible) {
+                    continue;
+                }
+                found.put(selector, new ElementProbe(true, visible, (String) value.get("text"), box, frame.name()));
+                knownFrames.put(selector, frame);
+            }
+        }
+    }
+    
+    private static double number(Map<?, ?> values, String key) {
+        return values.get(key) instanceof Number number ? number.doubleValue() : 0;
+    }
+    
     /**
      * Check if an element exists
      * @param selector CSS selector for the element
@@ -96,6 +228,14 @@ public class BasePageWeb {
         return getPage().textContent(selector);
     }
     
+    /**
+     * Get the URL of the current page
+     * @return Current page URL
+     */
+    public String getUrl() {
+        return getPage().url();
+    }
+    
     /**
      * Get the page title
      * @return Page title
@@ -104,14 +244,32 @@ public class BasePageWeb {
         return getPage().title();
     }
     
+    /**
+     * Collect Navigation Timing and Web Vitals of the current page load
+     * Waits for the load event, then stores the metrics on this page object and in TestContext
+     * @return Page load metrics or null if the browser reported none
+     */
+    public PageLoadMetrics collectPageLoadMetrics() {
+        pageLoadMetrics = PageMetricsCollector.collect(getPage());
+        TestContext.getInstance().setPageLoadMetrics(pageLoadMetrics);
+        return pageLoadMetrics;
+    }
+    
+    /**
+     * Get the metrics of the last collected page load
+     * @return Page load metrics or null if none were collected yet
+     */
+    public PageLoadMetrics getPageLoadMetrics() {
+        return pageLoadMetrics;
+    }
+    
     /**
      * Measure page load time in milliseconds
-     * @return Page load time in milliseconds
+     * Taken from the navigation entry, from navigation start to the end of the load event
+     * @return Page load time in milliseconds, -1 if it could not be measured
      */
     public long measurePageLoadTime() {
-        long startTime = System.currentTimeMillis();
-        getPage().waitForLoadState();
-        long endTime = System.currentTimeMillis();
-        return endTime - startTime;
+        PageLoadMetrics metrics = collectPageLoadMetrics();
+        return metrics != null ? Math.round(metrics.loadEvent()) : -1;
     }
 } 
\ No newline at end of file
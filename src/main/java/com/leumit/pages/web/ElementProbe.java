@@ -0,0 +1,20 @@
+package com.leumit.pages.web;
+
+import com.microsoft.playwright.options.BoundingBox;
+
+/**
+ * ElementProbe - What a probe found for one selector, in whichever frame it matched
+ *
+ * @param found Whether the selector matched an element in any frame
+ * @param visible Whether the element has a non-empty box and is not hidden by visibility
+ * @param text Text content of the element, null if not found
+ * @param boundingBox Box relative to the viewport of the element's frame, null if not found
+ * @param frameName Name of the frame the element is in, empty for unnamed frames, null if not found
+ */
+public record ElementProbe(boolean found, boolean visible, String text, BoundingBox boundingBox, String frameName) {
+
+    /**
+     * Result for a selector that matched in no frame
+     */
+    public static final ElementProbe NOT_FOUND = new ElementProbe(false, false, null, null, null);
+}
@@ -4,6 +4,8 @@ import com.microsoft.playwright.Page;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+
 /**
  * LeumitHomePage - Page object for Leumit home page
  */
@@ -49,23 +51,7 @@ public class LeumitHomePage extends BasePageWeb {
      */
     public boolean isIdentificationFieldVisible() {
         logger.info("Checking if identification field is visible");
-        
-        // Try to detect and switch to iframe if needed
-        if (getPage().frames().size() > 1) {
-            logger.info("Multiple frames detected, attempting to search in all frames");
-            for (com.microsoft.playwright.Frame frame : getPage().frames()) {
-                try {
-                    if (frame.isVisible(IDENTIFICATION_FIELD)) {
-                        logger.info("Found identification field in frame: {}", frame.name());
-                        return true;
-                    }
-                } catch (Exception e) {
-                    logger.debug("Failed to check frame: {}", frame.name(), e);
-                }
-            }
-        }
-        
-        return isElementVisible(IDENTIFICATION_FIELD);
+        return isLoginFieldVisible(IDENTIFICATION_FIELD);
     }
     
     /**
@@ -74,23 +60,34 @@ public class LeumitHomePage extends BasePageWeb {
      */
     public boolean isPasswordFieldVisible() {
         logger.info("Checking if password field is visible");
-        
-        // Try to detect and switch to iframe if needed
-        if (getPage().frames().size() > 1) {
-            logger.info("Multiple frames detected, attempting to search in all frames");
-            for (com.microsoft.playwright.Frame frame : getPage().frames()) {
-                try {
-                    if (frame.isVisible(PASSWORD_FIELD)) {
-                        logger.info("Found password field in frame: {}", frame.name());
-                        return true;
-                    }
-                } catch (Exception e) {
-                    logger.debug("Failed to check frame: {}", frame.name(), e);
-                }
+        return isLoginFieldVisible(PASSWORD_FIELD);
+    }
+    
+    /**
+     * Probe the identification and password fields together, in one call per frame
+     * @return Probe result per field selector
+     */
+    public Map<String, ElementProbe> probeLoginFields() {
+        return probe(IDENTIFICATION_FIELD, PASSWORD_FIELD);
+    }
+    
+    /**
+     * Check a login field that may sit in the main page or in the login iframe
+     * Probes the field afresh; the frame it was last found in is asked first
+     * @param selector CSS selector for the field
+     * @return True if the field is visible in any frame
+     */
+    private boolean isLoginFieldVisible(String selector) {
+        try {
+            ElementProbe result = probe(selector).get(selector);
+            if (result.found()) {
+                logger.info("Found {} in frame: {}", selector, result.frameName());
             }
+            return result.visible();
+        } catch (Exception e) {
+            logger.error("Error checking if element is visible: {}", selector, e);
+            return false;
         }
-        
-        return isElementVisible(PASSWORD_FIELD);
     }
     
     /**
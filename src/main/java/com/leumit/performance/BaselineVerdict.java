@@ -0,0 +1,92 @@
+package com.leumit.performance;
+
+import com.leumit.config.ConfigManager;
+import com.leumit.config.ConfigSnapshot;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * BaselineVerdict - Comparison of a value against a rolling baseline of earlier runs
+ * The baseline is the median of the history; the regression threshold lies a number of
+ * scaled median absolute deviations (MAD) above it, which is robust against the occasional
+ * outlier run. A relative margin keeps very stable series from flagging tiny changes.
+ *
+ * @param value Value of the current run
+ * @param median Median of the history
+ * @param mad Scaled median absolute deviation of the history
+ * @param threshold Value above which the current run counts as a regression
+ * @param samples Number of historical values used
+ * @param hasBaseline Whether the history held enough values to judge
+ */
+public record BaselineVerdict(double value, double median, double mad, double threshold,
+                              int samples, boolean hasBaseline) {
+
+    // Scales MAD to be comparable with a standard deviation for normally distributed values
+    private static final double MAD_SCALE = 1.4826;
+
+    /**
+     * Judge a value against a history using the perfBaseline* configuration
+     * @param history Values of earlier runs
+     * @param value Value of the current run
+     * @return Verdict
+     */
+    public static BaselineVerdict evaluate(double[] history, double value) {
+        // One snapshot, so a reload in between cannot mix old and new settings
+        ConfigSnapshot config = ConfigManager.getInstance().getSnapshot();
+        return evaluate(history, value,
+                Objects.requireNonNullElse(config.getInt("perfBaselineMinSamples"), 5),
+                Objects.requireNonNullElse(config.getDouble("perfBaselineMadMultiplier"), 3.0),
+                Objects.requireNonNullElse(config.getDouble("perfBaselineMinMarginPercent"), 10.0) / 100);
+    }
+
+    /**
+     * Judge a value against a history
+     * @param history Values of earlier runs
+     * @param value Value of the current run
+     * @param minSamples Minimum history size needed for a verdict
+     * @param madMultiplier Number of scaled MADs above the median that is still acceptable
+     * @param minRelativeMargin Minimum allowed margin above the median, as a fraction of it
+     * @return Verdict
+     */
+    public static BaselineVerdict evaluate(double[] history, double value, int minSamples,
+                                           double madMultiplier, double minRelativeMargin) {
+        if (history.length == 0) {
+            return new BaselineVerdict(value, 0, 0, Double.POSITIVE_INFINITY, 0, false);
+        }
+        double median = median(history.clone());
+        double[] deviations = new double[history.length];
+        for (int i = 0; i < history.length; i++) {
+            deviations[i] = Math.abs(history[i] - median);
+        }
+        double mad = MAD_SCALE * median(deviations);
+        double threshold = median + Math.max(madMultiplier * mad, Math.abs(median) * minRelativeMargin);
+        return new BaselineVerdict(value, median, mad, threshold, history.length, history.length >= minSamples);
+    }
+
+    /**
+     * Whether the value is a regression against a sufficient baseline
+     * @return true if the value is above the threshold
+     */
+    public boolean isRegression() {
+        return hasBaseline && value > threshold;
+    }
+
+    @Override
+    public String toString() {
+        if (!hasBaseline) {
+            return String.format("value=%.2f, building baseline (%d samples so far)", value, samples);
+        }
+        return String.format("value=%.2f, median=%.2f, mad=%.2f, threshold=%.2f over %d runs",
+                value, median, mad, threshold, samples);
+    }
+
+    /**
+     * Median of values, sorting them in place
+     */
+    static double median(double[] values) {
+        Arrays.sort(values);
+        int middle = values.length / 2;
+        return values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2;
+    }
+}
@@ -0,0 +1,221 @@
+package com.leumit.performance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * LatencyHistogram - Fixed-footprint latency histogram with HdrHistogram-style log buckets
+ * Values are grouped in power-of-two buckets, each split into linear sub-buckets, which keeps
+ * two significant digits of precision over the whole range. Recording is O(1) and never
+ * allocates; the counts array is sized once at construction.
+ * Not thread safe: use one histogram per recording thread and merge them with add().
+ */
+public class LatencyHistogram {
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final double[] REPORTED_PERCENTILES = {50, 75, 90, 95, 99, 99.9};
+
+    private final long highestTrackableValue;
+    private final int subBucketHalfCountMagnitude;
+    private final int subBucketHalfCount;
+    private final int subBucketCount;
+    private final long subBucketMask;
+    private final int leadingZeroCountBase;
+    private final long[] counts;
+
+    private long totalCount;
+    private long minValue = Long.MAX_VALUE;
+    private long maxValue;
+    private double sum;
+
+    /**
+     * Constructor for LatencyHistogram
+     * @param highestTrackableValue Largest value that can be recorded; larger values are clamped to it
+     */
+    public LatencyHistogram(long highestTrackableValue) {
+        this.highestTrackableValue = Math.max(2, highestTrackableValue);
+
+        // Sub-buckets needed for single unit resolution at the requested precision
+        long largestValueWithSingleUnitResolution = 2 * (long) Math.pow(10, SIGNIFICANT_DIGITS);
+        int subBucketCountMagnitude = (int) Math.ceil(Math.log(largestValueWithSingleUnitResolution) / Math.log(2));
+        this.subBucketHalfCountMagnitude = subBucketCountMagnitude - 1;
+        this.subBucketCount = 1 << subBucketCountMagnitude;
+        this.subBucketHalfCount = subBucketCount / 2;
+        this.subBucketMask = subBucketCount - 1;
+        this.leadingZeroCountBase = 64 - subBucketHalfCountMagnitude - 1;
+
+        // Buckets needed to cover the trackable range
+        long smallestUntrackableValue = subBucketCount;
+        int bucketCount = 1;
+        while (smallestUntrackableValue <= this.highestTrackableValue) {
+            if (smallestUntrackableValue > Long.MAX_VALUE / 2) {
+                bucketCount++;
+                break;
+            }
+            smallestUntrackableValue <<= 1;
+            bucketCount++;
+        }
+        this.counts = new long[(bucketCount + 1) * subBucketHalfCount];
+    }
+
+    /**
+     * Record a value
+     * @param value Value to record; negative values are recorded as 0
+     */
+    public void recordValue(long value) {
+        long clamped = Math.min(Math.max(0, value), highestTrackableValue);
+        counts[countsIndex(clamped)]++;
+        totalCount++;
+        minValue = Math.min(minValue, clamped);
+        maxValue = Math.max(maxValue, clamped);
+        sum += clamped;
+    }
+
+    /**
+     * Add all values recorded in another histogram with the same range
+     * @param other Histogram to merge into this one
+     */
+    public void add(LatencyHistogram other) {
+        if (other.counts.length != counts.length) {
+            throw new IllegalArgumentException("Cannot merge histograms with different ranges");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        minValue = Math.min(minValue, other.minValue);
+        maxValue = Math.max(maxValue, other.maxValue);
+        sum += other.sum;
+    }
+
+    /**
+     * Clear all recorded values, keeping the allocated counts
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        minValue = Long.MAX_VALUE;
+        maxValue = 0;
+        sum = 0;
+    }
+
+    /**
+     * Get the value at a percentile
+     * @param percentile Percentile between 0 and 100, 100 being the maximum
+     * @return Highest value equivalent to the percentile, or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        double requested = Math.min(Math.max(percentile, 0), 100);
+        long countAtPercentile = Math.max(1, (long) Math.ceil(requested / 100 * totalCount));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= countAtPercentile) {
+                return Math.min(highestEquivalentValue(valueFromIndex(i)), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMinValue() {
+        return totalCount == 0 ? 0 : minValue;
+    }
+
+    public long getMaxValue() {
+        return maxValue;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    /**
+     * Build a percentile summary table, e.g. for a report node
+     * @return Rows of percentile label and value, with a header row
+     */
+    public String[][] toPercentileTable() {
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"Percentile", "Value"});
+        rows.add(new String[]{"min", String.valueOf(getMinValue())});
+        for (double percentile : REPORTED_PERCENTILES) {
+            rows.add(new String[]{"p" + formatPercentile(percentile), String.valueOf(getValueAtPercentile(percentile))});
+        }
+        rows.add(new String[]{"max", String.valueOf(getMaxValue())});
+        rows.add(new String[]{"mean", String.format("%.1f", getMean())});
+        rows.add(new String[]{"count", String.valueOf(totalCount)});
+        return rows.toArray(new String[0][]);
+    }
+
+    /**
+     * Build the full distribution, one row per non-empty bucket range
+     * @return Rows of value range, count and cumulative percentage, with a header row
+     */
+    public String[][] toDistributionTable() {
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"Range", "Count", "Cumulative"});
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            cumulative += counts[i];
+            long low = valueFromIndex(i);
+            rows.add(new String[]{
+                    low + " - " + highestEquivalentValue(low),
+                    String.valueOf(counts[i]),
+                    String.format("%.1f%%", 100.0 * cumulative / totalCount)});
+        }
+        return rows.toArray(new String[0][]);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, min=%d, p50=%d, p90=%d, p99=%d, max=%d, mean=%.1f",
+                totalCount, getMinValue(), getValueAtPercentile(50), getValueAtPercentile(90),
+                getValueAtPercentile(99), getMaxValue(), getMean());
+    }
+
+    private int countsIndex(long value) {
+        int bucketIndex = bucketIndex(value);
+        int subBucketIndex = (int) (value >>> bucketIndex);
+        return ((bucketIndex + 1) << subBucketHalfCountMagnitude) + (subBucketIndex - subBucketHalfCount);
+    }
+
+    private int bucketIndex(long value) {
+        return leadingZeroCountBase - Long.numberOfLeadingZeros(value | subBucketMask);
+    }
+
+    private long valueFromIndex(int index) {
+        int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+        int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+        if (bucketIndex < 0) {
+            subBucketIndex -= subBucketHalfCount;
+            bucketIndex = 0;
+        }
+        return (long) subBucketIndex << bucketIndex;
+    }
+
+    private long highestEquivalentValue(long value) {
+        int bucketIndex = bucketIndex(value);
+        int subBucketIndex = (int) (value >>> bucketIndex);
+        int adjustedBucket = subBucketIndex >= subBucketCount ? bucketIndex + 1 : bucketIndex;
+        long lowestEquivalent = (long) subBucketIndex << bucketIndex;
+        return lowestEquivalent + (1L << adjustedBucket) - 1;
+    }
+
+    /**
+     * Format a percentile for labels, without a fraction when it is whole
+     * @param percentile Percentile, e.g. 95 or 99.9
+     * @return "95" or "99.9"
+     */
+    public static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+}
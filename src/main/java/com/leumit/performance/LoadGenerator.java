@@ -0,0 +1,243 @@
+package com.leumit.performance;
+
+import com.leumit.drivers.BrowserContextPool;
+import com.leumit.drivers.DriverFactory;
+import com.leumit.drivers.PoolStats;
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * LoadGenerator - Drives concurrent headless browser contexts through a scenario
+ * Playwright's Java API is single threaded, so every virtual user is a thread owning one
+ * headless browser; each iteration runs in a fresh context from that user's pool.
+ * In the open model latency is measured from the intended arrival time, so time spent
+ * waiting for a free user counts against the system instead of being hidden.
+ */
+public class LoadGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+    private static final long HIGHEST_TRACKABLE_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    private static final long BROWSER_START_TIMEOUT_SECONDS = 120;
+
+    private final LoadProfile profile;
+    private final LoadScenario scenario;
+    private final PoolStats poolStats = new PoolStats();
+    private final AtomicLong arrivals = new AtomicLong();
+    private final int sliceCount;
+    private final long sliceNanos;
+    private volatile long startNanos;
+    private volatile long deadlineNanos;
+
+    /**
+     * A scenario executed once per iteration
+     */
+    @FunctionalInterface
+    public interface LoadScenario {
+        /**
+         * Run one iteration; any exception counts as an error
+         * @param page Page in a fresh browser context
+         */
+        void run(Page page) throws Exception;
+    }
+
+    /**
+     * Constructor for LoadGenerator
+     * @param profile Load profile to drive
+     * @param scenario Scenario to execute per iteration
+     */
+    public LoadGenerator(LoadProfile profile, LoadScenario scenario) {
+        this.profile = profile;
+        this.scenario = scenario;
+        this.sliceNanos = Math.max(1, profile.reportInterval().toNanos());
+        // One extra slice collects iterations that finish after the run stopped starting new ones
+        this.sliceCount = (int) Math.ceil((double) profile.duration().toNanos() / sliceNanos) + 1;
+    }
+
+    /**
+     * Launch the users, run the load and merge their results
+     * @return Report of the run
+     */
+    public LoadReport run() throws InterruptedException {
+        int users = Math.max(1, profile.users());
+        CountDownLatch ready = new CountDownLatch(users);
+        CountDownLatch go = new CountDownLatch(1);
+        List<VirtualUser> virtualUsers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < users; i++) {
+            VirtualUser user = new VirtualUser(ready, go);
+            virtualUsers.add(user);
+            Thread thread = new Thread(user, "load-user-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+
+        // Browser launch time is not part of the measured run
+        if (!ready.await(BROWSER_START_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            logger.warn("Not all load users started their browser in time");
+        }
+        startNanos = System.nanoTime();
+        deadlineNanos = startNanos + profile.duration().toNanos();
+        logger.info("Starting {} load with {} users for {}", profile.model().name().toLowerCase(), users, profile.duration());
+        go.countDown();
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+
+        LoadReport report = merge(virtualUsers, elapsed);
+        logger.info("Load run finished: {}, context pool: {}", report, poolStats);
+        return report;
+    }
+
+    /**
+     * Merge the per-user recordings into one report
+     */
+    private LoadReport merge(List<VirtualUser> users, Duration elapsed) {
+        LatencyHistogram total = new LatencyHistogram(HIGHEST_TRACKABLE_MILLIS);
+        long totalErrors = 0;
+        List<LoadReport.Interval> intervals = new ArrayList<>();
+
+        for (int slice = 0; slice < sliceCount; slice++) {
+            LatencyHistogram sliceLatency = new LatencyHistogram(HIGHEST_TRACKABLE_MILLIS);
+            long sliceErrors = 0;
+            for (VirtualUser user : users) {
+                if (user.sliceLatency[slice] != null) {
+                    sliceLatency.add(user.sliceLatency[slice]);
+                }
+                sliceErrors += user.sliceErrors[slice];
+            }
+            total.add(sliceLatency);
+            totalErrors += sliceErrors;
+            if (sliceLatency.getTotalCount() > 0 || sliceErrors > 0) {
+                intervals.add(new LoadReport.Interval(Duration.ofNanos(slice * sliceNanos),
+                        sliceLatency.getTotalCount(), sliceErrors, sliceLatency));
+            }
+        }
+        return new LoadReport(profile, total, totalErrors, elapsed, intervals);
+    }
+
+    /**
+     * VirtualUser - One thread with its own headless browser and recordings
+     * Recordings are only touched by the owning thread until it has been joined
+     */
+    private final class VirtualUser implements Runnable {
+        private final CountDownLatch ready;
+        private final CountDownLatch go;
+        private final LatencyHistogram[] sliceLatency = new LatencyHistogram[sliceCount];
+        private final long[] sliceErrors = new long[sliceCount];
+
+        private VirtualUser(CountDownLatch ready, CountDownLatch go) {
+            this.ready = ready;
+            this.go = go;
+        }
+
+        @Override
+        public void run() {
+            boolean started = false;
+            try (Playwright playwright = DriverFactory.createPlaywright()) {
+                Browser browser = null;
+                BrowserContextPool pool = null;
+                try {
+                    browser = DriverFactory.createBrowser(playwright, true);
+                    pool = new BrowserContextPool(browser, 1, poolStats);
+                    pool.replenish();
+                    ready.countDown();
+                    go.await();
+                    started = true;
+
+                    if (profile.model() == LoadProfile.Model.CLOSED) {
+                        runClosed(pool);
+                    } else {
+                        runOpen(pool);
+                    }
+                } finally {
+                    if (pool != null) {
+                        pool.close();
+                    }
+                    if (browser != null) {
+                        browser.close();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.error(started ? "Load user failed" : "Load user failed to start", e);
+            } finally {
+                // Never leave the coordinator waiting for a user that could not start
+                ready.countDown();
+            }
+        }
+
+        private void runClosed(BrowserContextPool pool) throws InterruptedException {
+            long thinkMillis = profile.thinkTime().toMillis();
+            while (System.nanoTime() < deadlineNanos) {
+                long begin = System.nanoTime();
+                iterate(pool, begin);
+                if (thinkMillis > 0) {
+                    Thread.sleep(thinkMillis);
+                }
+            }
+        }
+
+        private void runOpen(BrowserContextPool pool) {
+            double intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(0.001, profile.arrivalsPerSecond());
+            while (true) {
+                long intended = startNanos + (long) (arrivals.getAndIncrement() * intervalNanos);
+                if (intended >= deadlineNanos) {
+                    return;
+                }
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                iterate(pool, intended);
+            }
+        }
+
+        /**
+         * Run one iteration and record it in the slice it completed in
+         * @param pool Pool supplying a fresh context
+         * @param begin Time the iteration started, or was meant to start
+         */
+        private void iterate(BrowserContextPool pool, long begin) {
+            Page page = null;
+            boolean success;
+            try {
+                // A context that cannot be opened is an error of this iteration, not the end of the user
+                page = pool.acquire();
+                scenario.run(page);
+                success = true;
+            } catch (Exception e) {
+                logger.debug("Load iteration failed", e);
+                success = false;
+            } finally {
+                if (page != null) {
+                    pool.release(page);
+                }
+            }
+            long end = System.nanoTime();
+            int slice = (int) Math.min(sliceCount - 1, Math.max(0, (end - startNanos) / sliceNanos));
+            if (success) {
+                if (sliceLatency[slice] == null) {
+                    sliceLatency[slice] = new LatencyHistogram(HIGHEST_TRACKABLE_MILLIS);
+                }
+                sliceLatency[slice].recordValue(TimeUnit.NANOSECONDS.toMillis(end - begin));
+            } else {
+                sliceErrors[slice]++;
+            }
+            pool.replenish();
+        }
+    }
+}
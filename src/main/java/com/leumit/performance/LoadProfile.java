@@ -0,0 +1,63 @@
+package com.leumit.performance;
+
+import java.time.Duration;
+
+/**
+ * LoadProfile - Shape of a synthetic load run
+ *
+ * @param model Closed (fixed users looping with think time) or open (fixed arrival rate)
+ * @param users Concurrent users; for the open model the cap on in-flight iterations
+ * @param duration How long new iterations are started
+ * @param thinkTime Pause between iterations of one user, closed model only
+ * @param arrivalsPerSecond Target rate of new iterations, open model only
+ * @param reportInterval Width of the time slices in the report
+ */
+public record LoadProfile(Model model, int users, Duration duration, Duration thinkTime,
+                          double arrivalsPerSecond, Duration reportInterval) {
+
+    /**
+     * Workload model
+     */
+    public enum Model {
+        /** A fixed population of users, each starting its next iteration after think time */
+        CLOSED,
+        /** Iterations arrive at a target rate, independent of how fast earlier ones complete */
+        OPEN
+    }
+
+    /**
+     * Create a closed-model profile
+     * @param users Number of concurrent users
+     * @param duration Duration of the run
+     * @param thinkTime Pause between iterations of one user
+     * @return Closed-model load profile
+     */
+    public static LoadProfile closed(int users, Duration duration, Duration thinkTime) {
+        return new LoadProfile(Model.CLOSED, users, duration, thinkTime, 0, defaultInterval(duration));
+    }
+
+    /**
+     * Create an open-model profile
+     * @param arrivalsPerSecond Target rate of new iterations
+     * @param duration Duration of the run
+     * @param maxUsers Maximum number of iterations in flight
+     * @return Open-model load profile
+     */
+    public static LoadProfile open(double arrivalsPerSecond, Duration duration, int maxUsers) {
+        return new LoadProfile(Model.OPEN, maxUsers, duration, Duration.ZERO, arrivalsPerSecond, defaultInterval(duration));
+    }
+
+    /**
+     * Copy of this profile with another report interval
+     * @param interval Width of the time slices in the report
+     * @return New load profile
+     */
+    public LoadProfile withReportInterval(Duration interval) {
+        return new LoadProfile(model, users, duration, thinkTime, arrivalsPerSecond, interval);
+    }
+
+    private static Duration defaultInterval(Duration duration) {
+        // Aim for about ten slices, but never less than a second
+        return Duration.ofMillis(Math.max(1000, duration.toMillis() / 10));
+    }
+}
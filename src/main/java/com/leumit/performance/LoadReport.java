@@ -0,0 +1,111 @@
+package com.leumit.performance;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LoadReport - Throughput, error rate and latency of a load run, overall and per time slice
+ * Latencies are in milliseconds
+ */
+public class LoadReport {
+    private final LoadProfile profile;
+    private final LatencyHistogram latency;
+    private final long errors;
+    private final Duration elapsed;
+    private final List<Interval> intervals;
+
+    /**
+     * Latency and outcome counts of one time slice of the run
+     * @param offset Start of the slice relative to the start of the run
+     * @param completed Iterations that finished successfully in this slice
+     * @param errors Iterations that failed in this slice
+     * @param latency Latencies of the successful iterations
+     */
+    public record Interval(Duration offset, long completed, long errors, LatencyHistogram latency) {
+    }
+
+    /**
+     * Constructor for LoadReport
+     * @param profile Profile the run was driven with
+     * @param latency Latencies of all successful iterations
+     * @param errors Number of failed iterations
+     * @param elapsed Wall time of the run
+     * @param intervals Per-slice results in chronological order
+     */
+    public LoadReport(LoadProfile profile, LatencyHistogram latency, long errors, Duration elapsed, List<Interval> intervals) {
+        this.profile = profile;
+        this.latency = latency;
+        this.errors = errors;
+        this.elapsed = elapsed;
+        this.intervals = List.copyOf(intervals);
+    }
+
+    public LoadProfile getProfile() {
+        return profile;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public List<Interval> getIntervals() {
+        return intervals;
+    }
+
+    public long getCompleted() {
+        return latency.getTotalCount();
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Get the share of iterations that failed
+     * @return Error rate in percent
+     */
+    public double getErrorRatePercent() {
+        long total = getCompleted() + errors;
+        return total == 0 ? 0 : 100.0 * errors / total;
+    }
+
+    /**
+     * Get the achieved rate of successful iterations
+     * @return Iterations per second over the whole run
+     */
+    public double getThroughput() {
+        double seconds = elapsed.toMillis() / 1000.0;
+        return seconds == 0 ? 0 : getCompleted() / seconds;
+    }
+
+    /**
+     * Build the over-time table, e.g. for a report node
+     * @return Rows per time slice with throughput, errors and latency percentiles, with a header row
+     */
+    public String[][] toIntervalTable() {
+        double sliceSeconds = profile.reportInterval().toMillis() / 1000.0;
+        List<String[]> rows = new ArrayList<>();
+        rows.add(new String[]{"Offset (s)", "Completed", "Errors", "Throughput (/s)", "p50 (ms)", "p95 (ms)", "p99 (ms)", "max (ms)"});
+        for (Interval interval : intervals) {
+            LatencyHistogram slice = interval.latency();
+            rows.add(new String[]{
+                    String.valueOf(interval.offset().toSeconds()),
+                    String.valueOf(interval.completed()),
+                    String.valueOf(interval.errors()),
+                    String.format("%.2f", interval.completed() / sliceSeconds),
+                    String.valueOf(slice.getValueAtPercentile(50)),
+                    String.valueOf(slice.getValueAtPercentile(95)),
+                    String.valueOf(slice.getValueAtPercentile(99)),
+                    String.valueOf(slice.getMaxValue())});
+        }
+        return rows.toArray(new String[0][]);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s load, %d users: completed=%d, errors=%d (%.2f%%), throughput=%.2f/s, latency[%s]",
+                profile.model().name().toLowerCase(), profile.users(), getCompleted(), errors,
+                getErrorRatePercent(), getThroughput(), latency);
+    }
+}
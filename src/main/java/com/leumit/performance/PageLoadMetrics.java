@@ -0,0 +1,82 @@
+package com.leumit.performance;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * PageLoadMetrics - Navigation Timing and Web Vitals of one page load
+ * All times are in milliseconds relative to the start of the navigation; a metric the browser did not
+ * report is NaN, so it never passes a comparison by accident
+ *
+ * @param timeToFirstByte Time until the first response byte arrived (TTFB)
+ * @param dnsLookup Time spent resolving the host name
+ * @param connect Time spent establishing the connection, including TLS
+ * @param tlsHandshake Time spent on the TLS handshake, 0 for plain HTTP or reused connections
+ * @param domContentLoaded End of the DOMContentLoaded event
+ * @param loadEvent End of the load event
+ * @param firstContentfulPaint First Contentful Paint (FCP), NaN if not reported
+ * @param largestContentfulPaint Largest Contentful Paint (LCP), NaN if not reported
+ * @param cumulativeLayoutShift Cumulative Layout Shift score (CLS)
+ * @param longTaskCount Number of main-thread tasks longer than 50 ms
+ * @param longTaskTime Total duration of all long tasks
+ * @param totalBlockingTime Sum of the time each long task exceeded 50 ms
+ */
+public record PageLoadMetrics(double timeToFirstByte, double dnsLookup, double connect, double tlsHandshake,
+                              double domContentLoaded, double loadEvent, double firstContentfulPaint,
+                              double largestContentfulPaint, double cumulativeLayoutShift, long longTaskCount,
+                              double longTaskTime, double totalBlockingTime) {
+
+    /**
+     * Get a metric by its short name, as used in feature files
+     * @param name ttfb, dns, connect, tls, domContentLoaded, load, fcp, lcp, cls, longTasks, longTaskTime or tbt
+     * @return Metric value
+     * @throws IllegalArgumentException if the metric name is unknown
+     */
+    public double get(String name) {
+        Double value = asMap().get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown page metric: " + name + ", expected one of " + asMap().keySet());
+        }
+        return value;
+    }
+
+    /**
+     * Check whether the browser reported a metric
+     * @param name Short metric name, see get
+     * @return false if the metric is NaN
+     * @throws IllegalArgumentException if the metric name is unknown
+     */
+    public boolean isReported(String name) {
+        return !Double.isNaN(get(name));
+    }
+
+    /**
+     * Get all metrics keyed by their short name
+     * @return Ordered map of metric name to value
+     */
+    public Map<String, Double> asMap() {
+        Map<String, Double> metrics = new LinkedHashMap<>();
+        metrics.put("ttfb", timeToFirstByte);
+        metrics.put("dns", dnsLookup);
+        metrics.put("connect", connect);
+        metrics.put("tls", tlsHandshake);
+        metrics.put("domContentLoaded", domContentLoaded);
+        metrics.put("load", loadEvent);
+        metrics.put("fcp", firstContentfulPaint);
+        metrics.put("lcp", largestContentfulPaint);
+        metrics.put("cls", cumulativeLayoutShift);
+        metrics.put("longTasks", (double) longTaskCount);
+        metrics.put("longTaskTime", longTaskTime);
+        metrics.put("tbt", totalBlockingTime);
+        return metrics;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ttfb=%.0fms, dns=%.0fms, connect=%.0fms, tls=%.0fms, domContentLoaded=%.0fms, load=%.0fms, "
+                        + "fcp=%.0fms, lcp=%.0fms, cls=%.3f, longTasks=%d (%.0fms), tbt=%.0fms",
+                timeToFirstByte, dnsLookup, connect, tlsHandshake, domContentLoaded, loadEvent,
+                firstContentfulPaint, largestContentfulPaint, cumulativeLayoutShift, longTaskCount,
+                longTaskTime, totalBlockingTime);
+    }
+}
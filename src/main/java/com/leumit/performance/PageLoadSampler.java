@@ -0,0 +1,81 @@
+package com.leumit.performance;
+
+import com.leumit.drivers.DriverManager;
+import com.leumit.server.UrlRewriter;
+import com.microsoft.playwright.Page;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PageLoadSampler - Loads a page repeatedly in fresh browser contexts and records a metric
+ * Warm-up iterations prime the worker browser and are not recorded
+ */
+public class PageLoadSampler {
+    private static final Logger logger = LoggerFactory.getLogger(PageLoadSampler.class);
+    private static final long HIGHEST_TRACKABLE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private PageLoadSampler() {
+        // Utility class
+    }
+
+    /**
+     * Result of a sampling run
+     * @param histogram Recorded values of the measured iterations, in milliseconds
+     * @param failures Number of measured iterations that failed to load or report metrics
+     */
+    public record Result(LatencyHistogram histogram, int failures) {
+    }
+
+    /**
+     * Sample a page load metric over a number of iterations
+     * @param url URL to load
+     * @param metric Page metric to record, see PageLoadMetrics.get
+     * @param warmupIterations Iterations to run before recording
+     * @param iterations Iterations to record
+     * @return Histogram of the recorded values and the number of failed iterations
+     */
+    public static Result sample(String url, String metric, int warmupIterations, int iterations) {
+        LatencyHistogram histogram = new LatencyHistogram(HIGHEST_TRACKABLE_MILLIS);
+        int failures = 0;
+
+        logger.info("Sampling {} of {} over {} iterations after {} warm-up iterations",
+                metric, url, iterations, warmupIterations);
+        for (int i = 0; i < warmupIterations; i++) {
+            loadOnce(url, metric);
+        }
+        for (int i = 0; i < iterations; i++) {
+            double value = loadOnce(url, metric);
+            if (Double.isNaN(value)) {
+                failures++;
+            } else {
+                histogram.recordValue(Math.round(value));
+            }
+        }
+        logger.info("Sampled {} of {}: {}, failures={}", metric, url, histogram, failures);
+        return new Result(histogram, failures);
+    }
+
+    /**
+     * Load the URL once in a fresh context
+     * @param url URL to load
+     * @param metric Page metric to read
+     * @return Metric value, or NaN if the iteration failed or the browser did not report the metric
+     */
+    private static double loadOnce(String url, String metric) {
+        Page page = DriverManager.acquireFreshPage();
+        try {
+            page.navigate(UrlRewriter.rewrite(url));
+            PageLoadMetrics metrics = PageMetricsCollector.collect(page);
+            return metrics != null ? metrics.get(metric) : Double.NaN;
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Page load iteration failed for: {}", url, e);
+            return Double.NaN;
+        } finally {
+            DriverManager.releaseFreshPage(page);
+        }
+    }
+}
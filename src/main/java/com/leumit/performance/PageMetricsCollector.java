@@ -0,0 +1,118 @@
+package com.leumit.performance;
+
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.options.LoadState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * PageMetricsCollector - Reads Navigation Timing and Web Vitals from a Playwright page
+ * LCP, CLS and long tasks are only reported to observers, so an init script registers
+ * PerformanceObservers at document start and the collector reads what they gathered.
+ */
+public class PageMetricsCollector {
+    private static final Logger logger = LoggerFactory.getLogger(PageMetricsCollector.class);
+
+    /**
+     * Init script installed on every browser context before any page script runs
+     */
+    public static final String INIT_SCRIPT = """
+            (() => {
+              if (window.__leumitPerf) return;
+              const perf = window.__leumitPerf = { lcp: null, cls: 0, longTaskCount: 0, longTaskTime: 0, tbt: 0 };
+              const observe = (type, onEntry) => {
+                try {
+                  new PerformanceObserver(list => list.getEntries().forEach(onEntry)).observe({ type, buffered: true });
+                } catch (e) {
+                  // Entry type not supported by this browser
+                }
+              };
+              observe('largest-contentful-paint', e => { perf.lcp = e.renderTime || e.loadTime || e.startTime; });
+              observe('layout-shift', e => { if (!e.hadRecentInput) perf.cls += e.value; });
+              observe('longtask', e => {
+                perf.longTaskCount++;
+                perf.longTaskTime += e.duration;
+                perf.tbt += Math.max(0, e.duration - 50);
+              });
+            })();
+            """;
+
+    private static final String LOAD_COMPLETE_SCRIPT =
+            "() => { const nav = performance.getEntriesByType('navigation')[0]; return !!nav && nav.loadEventEnd > 0; }";
+
+    private static final String COLLECT_SCRIPT = """
+            () => {
+              const nav = performance.getEntriesByType('navigation')[0];
+              if (!nav) return null;
+              const fcp = performance.getEntriesByName('first-contentful-paint')[0];
+              const perf = window.__leumitPerf || { lcp: null, cls: 0, longTaskCount: 0, longTaskTime: 0, tbt: 0 };
+              return {
+                ttfb: nav.responseStart - nav.startTime,
+                dns: nav.domainLookupEnd - nav.domainLookupStart,
+                connect: nav.connectEnd - nav.connectStart,
+                tls: nav.secureConnectionStart > 0 ? nav.connectEnd - nav.secureConnectionStart : 0,
+                domContentLoaded: nav.domContentLoadedEventEnd - nav.startTime,
+                load: nav.loadEventEnd - nav.startTime,
+                fcp: fcp ? fcp.startTime : null,
+                lcp: perf.lcp,
+                cls: perf.cls,
+                longTaskCount: perf.longTaskCount,
+                longTaskTime: perf.longTaskTime,
+                tbt: perf.tbt
+              };
+            }
+            """;
+
+    private PageMetricsCollector() {
+        // Utility class
+    }
+
+    /**
+     * Wait for the current navigation to finish loading and collect its metrics
+     * @param page Playwright page that has navigated
+     * @return Page load metrics, or null if the browser exposes no navigation entry
+     */
+    public static PageLoadMetrics collect(Page page) {
+        page.waitForLoadState(LoadState.LOAD);
+        try {
+            // loadEventEnd is only set once the load event handlers have returned
+            page.waitForFunction(LOAD_COMPLETE_SCRIPT);
+        } catch (Exception e) {
+            logger.warn("Navigation entry did not report load completion", e);
+        }
+
+        Object result = page.evaluate(COLLECT_SCRIPT);
+        if (!(result instanceof Map<?, ?> values)) {
+            logger.warn("No navigation timing entry available for: {}", page.url());
+            return null;
+        }
+        PageLoadMetrics metrics = new PageLoadMetrics(
+                number(values, "ttfb"),
+                number(values, "dns"),
+                number(values, "connect"),
+                number(values, "tls"),
+                number(values, "domContentLoaded"),
+                number(values, "load"),
+                number(values, "fcp"),
+                number(values, "lcp"),
+                number(values, "cls"),
+                (long) number(values, "longTaskCount"),
+                number(values, "longTaskTime"),
+                number(values, "tbt"));
+        logger.info("Page metrics for {}: {}", page.url(), metrics);
+        return metrics;
+    }
+
+    /**
+     * Read a numeric value from the evaluated result
+     * @param values Result of the collect script
+     * @param key Key of the value
+     * @return Value as double, NaN if the browser did not report it
+     */
+    private static double number(Map<?, ?> values, String key) {
+        Object value = values.get(key);
+        return value instanceof Number number ? number.doubleValue() : Double.NaN;
+    }
+}
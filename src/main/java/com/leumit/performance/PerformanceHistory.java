@@ -0,0 +1,225 @@
+package com.leumit.performance;
+
+import com.leumit.config.ConfigManager;
+import io.cucumber.java.Scenario;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PerformanceHistory - Append-only local store of timings across runs
+ * Every series (scenario duration, step duration, page metric) has its own file of fixed-size
+ * records (run id, value). Appending is a single 16-byte write, and reading the last N values is
+ * one positional read at the end of the file, however many runs the file holds.
+ * A keys.tsv index maps file names back to series keys for humans.
+ */
+public class PerformanceHistory {
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceHistory.class);
+    private static final int RECORD_SIZE = Long.BYTES + Double.BYTES;
+    private static final String INDEX_FILE = "keys.tsv";
+
+    private final Path directory;
+    private final long runId;
+    private final Map<String, FileChannel> channels = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for PerformanceHistory
+     * @param directory Directory holding the series files
+     * @param runId Identifier of the current run, e.g. its start time in epoch milliseconds
+     */
+    public PerformanceHistory(Path directory, long runId) {
+        this.directory = directory;
+        this.runId = runId;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            logger.error("Failed to create performance history directory: {}", directory, e);
+        }
+    }
+
+    /**
+     * Holder of the instance, created on first use by the class loader without locking
+     */
+    private static class Holder {
+        private static final PerformanceHistory INSTANCE = new PerformanceHistory(
+                Paths.get(ConfigManager.getInstance().getProperty("perfHistoryPath", "target/perf-history")),
+                System.currentTimeMillis());
+    }
+
+    /**
+     * Get the store configured by perfHistoryPath, shared by the whole run
+     * @return PerformanceHistory instance
+     */
+    public static PerformanceHistory getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Append a value of the current run to a series
+     * @param key Series key, e.g. scenario:Feature/Scenario:duration
+     * @param value Value to append; NaN, a value that was not measured, is not appended
+     */
+    public void append(String key, double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).putLong(runId).putDouble(value).flip();
+        try {
+            FileChannel channel = channels.computeIfAbsent(key, this::openForAppend);
+            if (channel != null) {
+                // Writes in append mode are atomic with respect to each other
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to append performance history for: {}", key, e);
+        }
+    }
+
+    /**
+     * Read the most recent values of a series, oldest first
+     * Values appended by the current run are excluded, so they can be compared to the baseline,
+     * and so are negative values, which older versions wrote for metrics the browser did not report
+     * @param key Series key
+     * @param count Maximum number of values to return
+     * @return Up to count most recent values of earlier runs
+     */
+    public double[] readLast(String key, int count) {
+        Path file = fileFor(key);
+        if (!Files.exists(file) || count <= 0) {
+            return new double[0];
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long records = channel.size() / RECORD_SIZE;
+            // Read a little extra to make up for records of the current run at the tail
+            long wanted = Math.min(records, count + 16L);
+            ByteBuffer buffer = ByteBuffer.allocate((int) (wanted * RECORD_SIZE));
+            long position = (records - wanted) * RECORD_SIZE;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + buffer.position());
+                if (read < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+
+            double[] values = new double[(int) wanted];
+            int size = 0;
+            while (buffer.remaining() >= RECORD_SIZE) {
+                long recordRunId = buffer.getLong();
+                double value = buffer.getDouble();
+                // Negative values are "not reported" markers written by older versions, not measurements
+                if (recordRunId != runId && value >= 0) {
+                    values[size++] = value;
+                }
+            }
+            return Arrays.copyOfRange(values, Math.max(0, size - count), size);
+        } catch (IOException e) {
+            logger.error("Failed to read performance history for: {}", key, e);
+            return new double[0];
+        }
+    }
+
+    /**
+     * Compare a value of the current run against the rolling baseline of its series
+     * @param key Series key
+     * @param value Value of the current run
+     * @return Verdict over the last perfBaselineWindow earlier runs
+     */
+    public BaselineVerdict compare(String key, double value) {
+        int window = ConfigManager.getInstance().getIntProperty("perfBaselineWindow", 20);
+        return BaselineVerdict.evaluate(readLast(key, window), value);
+    }
+
+    /**
+     * Expected value of a series: its median over the last perfBaselineWindow earlier runs
+     * @param key Series key
+     * @return Median of the history, or NaN if the series has none yet
+     */
+    public double expectedValue(String key) {
+        int window = ConfigManager.getInstance().getIntProperty("perfBaselineWindow", 20);
+        double[] history = readLast(key, window);
+        return history.length == 0 ? Double.NaN : BaselineVerdict.median(history);
+    }
+
+    /**
+     * Close all open series files
+     */
+    public void close() {
+        channels.forEach((key, channel) -> {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.error("Failed to close performance history for: {}", key, e);
+            }
+        });
+        channels.clear();
+    }
+
+    public long getRunId() {
+        return runId;
+    }
+
+    /**
+     * Key of the series of a scenario measurement, e.g. duration or a page metric
+     * @param scenario Cucumber scenario
+     * @param measurement Measurement name
+     * @return Series key
+     */
+    public static String scenarioKey(Scenario scenario, String measurement) {
+        return scenarioKey(scenario.getUri().toString(), scenario.getName(), measurement);
+    }
+
+    /**
+     * Key of the series of a scenario measurement, for scenarios that have not run yet
+     * @param featureUri URI of the feature file
+     * @param scenarioName Scenario name
+     * @param measurement Measurement name
+     * @return Series key
+     */
+    public static String scenarioKey(String featureUri, String scenarioName, String measurement) {
+        String feature = featureUri.substring(featureUri.lastIndexOf('/') + 1).replace(".feature", "");
+        return feature + "/" + scenarioName + ":" + measurement;
+    }
+
+    /**
+     * Open a series file for appending, registering it in the index on first use
+     */
+    private FileChannel openForAppend(String key) {
+        Path file = fileFor(key);
+        try {
+            boolean isNew = !Files.exists(file);
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            if (isNew) {
+                Files.writeString(directory.resolve(INDEX_FILE), file.getFileName() + "\t" + key + System.lineSeparator(),
+                        StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            return channel;
+        } catch (IOException e) {
+            logger.error("Failed to open performance history for: {}", key, e);
+            return null;
+        }
+    }
+
+    /**
+     * Map a series key to a file name that is readable and unique
+     */
+    private Path fileFor(String key) {
+        String readable = key.replaceAll("[^A-Za-z0-9._-]+", "_");
+        if (readable.length() > 80) {
+            readable = readable.substring(0, 80);
+        }
+        return directory.resolve(readable + "-" + Integer.toHexString(key.hashCode()) + ".bin");
+    }
+}
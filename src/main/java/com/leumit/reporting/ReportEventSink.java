@@ -0,0 +1,171 @@
+package com.leumit.reporting;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.leumit.config.ConfigManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * ReportEventSink - Applies report events to ExtentReports on a single consumer thread
+ * Test threads publish events to a lock-free queue and return immediately; the consumer applies them
+ * in the order they were published, so the events of one scenario keep their order. Since only the
+ * consumer touches the Extent object model, scenario threads never contend for it.
+ */
+public class ReportEventSink {
+    private static final Logger logger = LoggerFactory.getLogger(ReportEventSink.class);
+    private static final long IDLE_PARK_NANOS = Duration.ofMillis(50).toNanos();
+    private static final long DRAIN_TIMEOUT_NANOS = Duration.ofSeconds(
+            ConfigManager.getInstance().getIntProperty("reportDrainTimeoutSeconds", 60)).toNanos();
+
+    private final Queue<Runnable> events = new ConcurrentLinkedQueue<>();
+    private final AtomicLong published = new AtomicLong();
+    private final Thread consumer;
+    private volatile long applied;
+    private volatile boolean idle;
+
+    private ReportEventSink() {
+        consumer = new Thread(this::consume, "report-sink");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Holder of the instance, created on first use by the class loader without locking
+     */
+    private static class Holder {
+        private static final ReportEventSink INSTANCE = new ReportEventSink();
+    }
+
+    /**
+     * Get the sink shared by all report nodes
+     * @return ReportEventSink instance
+     */
+    public static ReportEventSink getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Create a top-level test in a report
+     * @param reports Report to create the test in
+     * @param name Test name
+     * @return Handle of the test, usable right away
+     */
+    public ReportNode createTest(ExtentReports reports, String name) {
+        ReportNode node = new ReportNode(this);
+        publish(() -> node.bind(reports.createTest(name)));
+        return node;
+    }
+
+    /**
+     * Set system information of a report
+     * @param reports Report to update
+     * @param key Information name
+     * @param value Information value
+     */
+    public void setSystemInfo(ExtentReports reports, String key, String value) {
+        publish(() -> reports.setSystemInfo(key, value));
+    }
+
+    /**
+     * Apply everything published so far, then write the report to disk
+     * Blocks until the report is written; meant for the end of a run or of a feature
+     * @param reports Report to flush
+     */
+    public void flush(ExtentReports reports) {
+        publish(reports::flush);
+        awaitApplied(published.get());
+    }
+
+    /**
+     * Write a report to disk once everything published so far is applied, without waiting for it
+     * @param reports Report to flush
+     * @param onFlushed Callback run on the consumer thread after the report is written
+     */
+    public void flushAsync(ExtentReports reports, Runnable onFlushed) {
+        publish(() -> {
+            reports.flush();
+            onFlushed.run();
+        });
+    }
+
+    /**
+     * Wait until every event published so far has been applied
+     */
+    public void awaitDrained() {
+        awaitApplied(published.get());
+    }
+
+    /**
+     * Queue an event for the consumer thread
+     * @param event Event applied to the Extent object model
+     */
+    void publish(Runnable event) {
+        events.offer(event);
+        published.incrementAndGet();
+        // Only wake the consumer when it may be parked
+        if (idle) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Queue an event for a node, applied once the node is bound to its Extent test
+     * @param node Node the event applies to
+     * @param event Event to apply
+     */
+    void publish(ReportNode node, Consumer<ExtentTest> event) {
+        publish(() -> {
+            if (node.getTest() != null) {
+                event.accept(node.getTest());
+            }
+        });
+    }
+
+    /**
+     * Wait until the consumer has applied the given number of events, at most reportDrainTimeoutSeconds
+     * A stuck event or a dead consumer thread would otherwise hang the run at its last flush
+     */
+    private void awaitApplied(long target) {
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (applied < target) {
+            if (!consumer.isAlive() || System.nanoTime() - deadline >= 0) {
+                logger.error("Report events not applied within {} s, {} events dropped (consumer {})",
+                        Duration.ofNanos(DRAIN_TIMEOUT_NANOS).toSeconds(), target - applied,
+                        consumer.isAlive() ? "busy" : "stopped");
+                return;
+            }
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(Duration.ofMillis(1).toNanos());
+        }
+    }
+
+    private void consume() {
+        while (true) {
+            Runnable event = events.poll();
+            if (event == null) {
+                idle = true;
+                // Re-check after announcing idleness, a publisher may have missed the flag
+                if (events.isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idle = false;
+                continue;
+            }
+            try {
+                event.run();
+            } catch (Throwable e) {
+                // Errors too, e.g. from a report listener, the consumer thread must outlive any event
+                logger.error("Failed to apply report event", e);
+            }
+            applied++;
+        }
+    }
+}
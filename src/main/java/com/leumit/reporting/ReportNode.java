@@ -0,0 +1,108 @@
+package com.leumit.reporting;
+
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.markuputils.Markup;
+import com.aventstack.extentreports.model.Media;
+
+/**
+ * ReportNode - Handle of a test or node in the report
+ * Calls publish events to the ReportEventSink and return immediately; the Extent test behind the
+ * handle is created and only ever touched by the sink's consumer thread.
+ */
+public class ReportNode {
+    private final ReportEventSink sink;
+    // Written and read by the consumer thread only
+    private ExtentTest test;
+
+    ReportNode(ReportEventSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Create a child node
+     * @param name Node name
+     * @return Handle of the child node
+     */
+    public ReportNode createNode(String name) {
+        ReportNode child = new ReportNode(sink);
+        sink.publish(this, test -> child.bind(test.createNode(name)));
+        return child;
+    }
+
+    /**
+     * Log a message
+     * @param status Status of the entry
+     * @param details Message
+     * @return This node
+     */
+    public ReportNode log(Status status, String details) {
+        sink.publish(this, test -> test.log(status, details));
+        return this;
+    }
+
+    /**
+     * Log a message with media, e.g. a screenshot
+     * @param status Status of the entry
+     * @param details Message
+     * @param media Media attached to the entry
+     * @return This node
+     */
+    public ReportNode log(Status status, String details, Media media) {
+        sink.publish(this, test -> test.log(status, details, media));
+        return this;
+    }
+
+    /**
+     * Log markup, e.g. a table
+     * @param status Status of the entry
+     * @param markup Markup to log
+     * @return This node
+     */
+    public ReportNode log(Status status, Markup markup) {
+        sink.publish(this, test -> test.log(status, markup));
+        return this;
+    }
+
+    public ReportNode pass(String details) {
+        return log(Status.PASS, details);
+    }
+
+    public ReportNode fail(String details) {
+        return log(Status.FAIL, details);
+    }
+
+    public ReportNode skip(String details) {
+        return log(Status.SKIP, details);
+    }
+
+    public ReportNode warning(String details) {
+        return log(Status.WARNING, details);
+    }
+
+    public ReportNode info(String details) {
+        return log(Status.INFO, details);
+    }
+
+    public ReportNode info(Markup markup) {
+        return log(Status.INFO, markup);
+    }
+
+    /**
+     * Assign categories, e.g. scenario tags
+     * @param categories Category names
+     * @return This node
+     */
+    public ReportNode assignCategory(String... categories) {
+        sink.publish(this, test -> test.assignCategory(categories));
+        return this;
+    }
+
+    void bind(ExtentTest test) {
+        this.test = test;
+    }
+
+    ExtentTest getTest() {
+        return test;
+    }
+}
@@ -0,0 +1,285 @@
+package com.leumit.reporting;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.model.Test;
+import com.aventstack.extentreports.reporter.JsonFormatter;
+import com.aventstack.extentreports.reporter.ExtentSparkReporter;
+import com.aventstack.extentreports.reporter.configuration.Theme;
+import com.leumit.config.ConfigManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * StreamingReport - Report mode that writes one Extent report per feature as soon as it is done
+ * When the last expected scenario of a feature finishes, its report is flushed to disk and dropped,
+ * so memory holds only the features still running. An index page linking the feature reports is
+ * rewritten after each feature, so an interrupted run still leaves the features completed so far.
+ * Features without an expected scenario count are written when the run finishes.
+ * Each feature also writes a JSON fragment; with reportStitch the fragments are merged into one
+ * report.html when the run finishes. Stitching holds the whole run in memory once, after the last
+ * scenario, so the heap stays flat while scenarios run but not during the stitch itself.
+ */
+public class StreamingReport {
+    private static final Logger logger = LoggerFactory.getLogger(StreamingReport.class);
+    private static final boolean stitch = ConfigManager.getInstance().getBooleanProperty("reportStitch", true);
+
+    private final Path directory;
+    private final Map<String, FeatureReport> openReports = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> remainingScenarios = new ConcurrentHashMap<>();
+    private final AtomicInteger fragmentCount = new AtomicInteger();
+    // Only touched by the report sink's consumer thread
+    private final List<IndexEntry> index = new ArrayList<>();
+    private final Map<String, String> systemInfo = new LinkedHashMap<>();
+    private boolean stitched;
+
+    /**
+     * The report of a running feature
+     */
+    private record FeatureReport(String featureName, String fileName, String jsonName, ExtentReports reports) {
+    }
+
+    /**
+     * A feature report listed on the index page
+     */
+    private record IndexEntry(String featureName, String fileName, String jsonName, Status status,
+                              int passed, int failed, int skipped) {
+    }
+
+    private StreamingReport() {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        this.directory = Paths.get("target/extent-reports", "cucumber_report_" + timestamp);
+    }
+
+    /**
+     * Holder of the instance, created on first use by the class loader without locking
+     */
+    private static class Holder {
+        private static final StreamingReport INSTANCE = new StreamingReport();
+    }
+
+    /**
+     * Get the streaming report of this run
+     * @return StreamingReport instance
+     */
+    public static StreamingReport getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Declare how many scenarios of a feature will run, so its report can be written after the last one
+     * @param featureUri Feature URI
+     * @param scenarioCount Number of scenarios of the feature in this run
+     */
+    public void expectScenarios(String featureUri, int scenarioCount) {
+        remainingScenarios.computeIfAbsent(featureUri, uri -> new AtomicInteger()).addAndGet(scenarioCount);
+    }
+
+    /**
+     * Get the report of a feature, creating it on first use
+     * @param featureUri Feature URI
+     * @param featureName Display name for the feature
+     * @return Report of the feature
+     */
+    public ExtentReports reportFor(String featureUri, String featureName) {
+        return openReports.computeIfAbsent(featureUri, uri -> {
+            String slug = featureName.toLowerCase().replaceAll("[^\\p{L}\\p{N}]+", "_");
+            String baseName = String.format("%03d_%s", fragmentCount.incrementAndGet(), slug);
+            String fileName = baseName + ".html";
+
+            ExtentSparkReporter sparkReporter = new ExtentSparkReporter(directory.resolve(fileName).toString());
+            sparkReporter.config().setDocumentTitle("Leumit Automation Test Report - " + featureName);
+            sparkReporter.config().setReportName(featureName);
+            sparkReporter.config().setTheme(Theme.STANDARD);
+            sparkReporter.config().setTimelineEnabled(false);
+
+            ExtentReports reports = new ExtentReports();
+            reports.attachReporter(sparkReporter);
+            String jsonName = null;
+            if (stitch) {
+                jsonName = baseName + ".json";
+                reports.attachReporter(new JsonFormatter(directory.resolve(jsonName).toString()));
+            }
+            reports.setSystemInfo("Operating System", System.getProperty("os.name"));
+            return new FeatureReport(featureName, fileName, jsonName, reports);
+        }).reports();
+    }
+
+    /**
+     * Count a finished scenario; after the last expected one the feature report is written and released
+     * @param featureUri Feature URI
+     * @return true if the feature report was released
+     */
+    public boolean scenarioFinished(String featureUri) {
+        AtomicInteger remaining = remainingScenarios.get(featureUri);
+        if (remaining == null || remaining.decrementAndGet() > 0) {
+            return false;
+        }
+        remainingScenarios.remove(featureUri);
+        return release(featureUri);
+    }
+
+    /**
+     * Add information shown on the index page
+     * @param key Information name
+     * @param value Information value
+     */
+    public void setSystemInfo(String key, String value) {
+        ReportEventSink.getInstance().publish(() -> {
+            systemInfo.put(key, value);
+            writeIndex();
+        });
+    }
+
+    /**
+     * Write all features that are still open, stitch them with reportStitch, and wait until everything is on disk
+     * @return Path of the index page
+     */
+    public Path finish() {
+        new ArrayList<>(openReports.keySet()).forEach(this::release);
+        if (stitch) {
+            ReportEventSink.getInstance().publish(this::writeStitchedReport);
+        }
+        ReportEventSink.getInstance().awaitDrained();
+        logger.info("Streaming report written: {} features, index: {}", fragmentCount.get(), directory.resolve("index.html"));
+        return directory.resolve("index.html");
+    }
+
+    /**
+     * Flush a feature report in the background and drop it from memory
+     */
+    private boolean release(String featureUri) {
+        FeatureReport feature = openReports.remove(featureUri);
+        if (feature == null) {
+            return false;
+        }
+        ReportEventSink.getInstance().flushAsync(feature.reports(), () -> {
+            index.add(createIndexEntry(feature));
+            writeIndex();
+            logger.info("Feature report written: {}", feature.featureName());
+        });
+        return true;
+    }
+
+    /**
+     * Summarize a flushed feature report; runs on the report sink's consumer thread
+     */
+    private IndexEntry createIndexEntry(FeatureReport feature) {
+        int passed = 0;
+        int failed = 0;
+        int skipped = 0;
+        for (Test test : feature.reports().getReport().getTestList()) {
+            for (Test scenario : test.getChildren()) {
+                if (scenario.getStatus() == Status.FAIL) {
+                    failed++;
+                } else if (scenario.getStatus() == Status.SKIP) {
+                    skipped++;
+                } else {
+                    passed++;
+                }
+            }
+        }
+        return new IndexEntry(feature.featureName(), feature.fileName(), feature.jsonName(),
+                feature.reports().getReport().getStatus(), passed, failed, skipped);
+    }
+
+    /**
+     * Merge the JSON fragments of all written features into report.html; runs on the report sink's consumer thread
+     */
+    private void writeStitchedReport() {
+        long start = System.nanoTime();
+        ExtentSparkReporter sparkReporter = new ExtentSparkReporter(directory.resolve("report.html").toString());
+        sparkReporter.config().setDocumentTitle("Leumit Automation Test Report");
+        sparkReporter.config().setReportName("Cucumber BDD Tests");
+        sparkReporter.config().setTheme(Theme.STANDARD);
+
+        ExtentReports reports = new ExtentReports();
+        reports.attachReporter(sparkReporter);
+        systemInfo.forEach(reports::setSystemInfo);
+        for (IndexEntry entry : index) {
+            try {
+                reports.createDomainFromJsonArchive(directory.resolve(entry.jsonName()).toFile());
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to stitch feature report {} into the run report", entry.featureName(), e);
+            }
+        }
+        reports.flush();
+        stitched = true;
+        writeIndex();
+        logger.info("Stitched report written from {} features in {} ms: {}", index.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                directory.resolve("report.html"));
+    }
+
+    /**
+     * Rewrite the index page; written to a temporary file first so a crash never leaves half a page
+     */
+    private void writeIndex() {
+        StringBuilder html = new StringBuilder()
+                .append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n")
+                .append("<title>Leumit Automation Test Report</title>\n")
+                .append("<style>body{font-family:sans-serif;margin:2em}table{border-collapse:collapse}")
+                .append("td,th{border:1px solid #ccc;padding:4px 10px;text-align:left}")
+                .append(".pass{color:#2e7d32}.fail{color:#c62828}.skip{color:#f9a825}</style>\n")
+                .append("</head>\n<body>\n<h1>Cucumber BDD Tests</h1>\n");
+        if (stitched) {
+            html.append("<p><a href=\"report.html\">Complete report</a></p>\n");
+        }
+        html.append("<table>\n")
+                .append("<tr><th>Feature</th><th>Status</th><th>Passed</th><th>Failed</th><th>Skipped</th></tr>\n");
+        int passed = 0;
+        int failed = 0;
+        int skipped = 0;
+        for (IndexEntry entry : index) {
+            String status = entry.status().toString().toLowerCase();
+            html.append("<tr><td><a href=\"").append(entry.fileName()).append("\">")
+                    .append(escapeHtml(entry.featureName())).append("</a></td>")
+                    .append("<td class=\"").append(status).append("\">").append(status).append("</td>")
+                    .append("<td>").append(entry.passed()).append("</td>")
+                    .append("<td>").append(entry.failed()).append("</td>")
+                    .append("<td>").append(entry.skipped()).append("</td></tr>\n");
+            passed += entry.passed();
+            failed += entry.failed();
+            skipped += entry.skipped();
+        }
+        html.append("<tr><th>Total</th><th></th><th>").append(passed).append("</th><th>").append(failed)
+                .append("</th><th>").append(skipped).append("</th></tr>\n</table>\n");
+        if (!systemInfo.isEmpty()) {
+            html.append("<h2>System</h2>\n<table>\n");
+            systemInfo.forEach((key, value) -> html.append("<tr><th>").append(escapeHtml(key))
+                    .append("</th><td>").append(escapeHtml(value)).append("</td></tr>\n"));
+            html.append("</table>\n");
+        }
+        html.append("</body>\n</html>\n");
+
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "index", ".tmp");
+            Files.writeString(temp, html, StandardCharsets.UTF_8);
+            Files.move(temp, directory.resolve("index.html"),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.error("Failed to write report index", e);
+        }
+    }
+
+    private static String escapeHtml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
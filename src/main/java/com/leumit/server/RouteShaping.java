@@ -0,0 +1,59 @@
+package com.leumit.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * RouteShaping - Latency, bandwidth and errors injected into the responses of a route
+ *
+ * @param latencyMillis Delay before the response starts
+ * @param bytesPerSecond Maximum body transfer rate, 0 for unlimited
+ * @param errorRate Share of requests answered with errorStatus, from 0 to 1
+ * @param errorStatus HTTP status of injected errors
+ */
+public record RouteShaping(long latencyMillis, long bytesPerSecond, double errorRate, int errorStatus) {
+
+    public static final RouteShaping NONE = new RouteShaping(0, 0, 0, 503);
+
+    /**
+     * Parse per-route shaping, e.g. "/:latency=50;/login.html:latency=200,bandwidthKbps=256,errorRate=0.1"
+     * Keys are latency (ms), bandwidthKbps (kilobits per second), errorRate (0 to 1) and errorStatus
+     * @param spec Routes separated by ';', each a path prefix and its settings
+     * @return Path prefix to shaping, in the order given
+     */
+    public static Map<String, RouteShaping> parse(String spec) {
+        Map<String, RouteShaping> routes = new LinkedHashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return routes;
+        }
+        for (String route : spec.split(";")) {
+            int colon = route.indexOf(':');
+            String prefix = (colon < 0 ? route : route.substring(0, colon)).trim();
+            if (prefix.isEmpty()) {
+                continue;
+            }
+            long latency = 0;
+            long bytesPerSecond = 0;
+            double errorRate = 0;
+            int errorStatus = 503;
+            if (colon >= 0) {
+                for (String setting : route.substring(colon + 1).split(",")) {
+                    String[] pair = setting.split("=", 2);
+                    if (pair.length != 2) {
+                        continue;
+                    }
+                    String value = pair[1].trim();
+                    switch (pair[0].trim()) {
+                        case "latency" -> latency = Long.parseLong(value);
+                        case "bandwidthKbps" -> bytesPerSecond = Long.parseLong(value) * 1000 / 8;
+                        case "errorRate" -> errorRate = Double.parseDouble(value);
+                        case "errorStatus" -> errorStatus = Integer.parseInt(value);
+                        default -> throw new IllegalArgumentException("Unknown route setting: " + pair[0]);
+                    }
+                }
+            }
+            routes.put(prefix, new RouteShaping(latency, bytesPerSecond, errorRate, errorStatus));
+        }
+        return routes;
+    }
+}
@@ -0,0 +1,229 @@
+package com.leumit.server;
+
+import com.leumit.config.ConfigManager;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * StandInServer - Embedded HTTP server serving a fixture copy of the site under test
+ * Fixtures are read from the standin/ classpath directory and cached in memory. Every response can be
+ * shaped per route with injected latency, a bandwidth limit and a share of injected errors; the route
+ * with the longest matching path prefix wins. Requests are handled on virtual threads, so sleeping
+ * for latency or throttling costs no platform thread.
+ */
+public class StandInServer {
+    private static final Logger logger = LoggerFactory.getLogger(StandInServer.class);
+    private static final String FIXTURE_ROOT = "standin";
+    private static final int CHUNK_SIZE = 512;
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "html", "text/html; charset=utf-8",
+            "css", "text/css; charset=utf-8",
+            "js", "application/javascript; charset=utf-8",
+            "svg", "image/svg+xml",
+            "png", "image/png",
+            "jpg", "image/jpeg",
+            "ico", "image/x-icon",
+            "json", "application/json; charset=utf-8");
+    private static StandInServer instance;
+
+    private final Map<String, RouteShaping> routes;
+    private final Map<String, byte[]> fixtures = new ConcurrentHashMap<>();
+    private final LongAdder served = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final LongAdder notFound = new LongAdder();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    private StandInServer(Map<String, RouteShaping> routes) {
+        this.routes = routes;
+    }
+
+    /**
+     * Get the singleton instance, configured from standinRoutes
+     * @return StandInServer instance
+     */
+    public static synchronized StandInServer getInstance() {
+        if (instance == null) {
+            instance = new StandInServer(RouteShaping.parse(ConfigManager.getInstance().getProperty("standinRoutes", "")));
+        }
+        return instance;
+    }
+
+    /**
+     * Check if the stand-in replaces the site under test in this run
+     * @return True if standinEnabled is set
+     */
+    public static boolean isEnabled() {
+        return ConfigManager.getInstance().getBooleanProperty("standinEnabled", false);
+    }
+
+    /**
+     * Start the server on the loopback interface and rewrite site URLs to it
+     * @param port Port to listen on, 0 for any free port
+     */
+    public synchronized void start(int port) {
+        if (server != null) {
+            return;
+        }
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to start stand-in server on port " + port, e);
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        UrlRewriter.setTarget(getOrigin());
+        logger.info("Stand-in server started at {} with routes {}", getOrigin(), routes);
+    }
+
+    /**
+     * Stop the server and stop rewriting site URLs
+     */
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        UrlRewriter.clear();
+        server.stop(0);
+        executor.close();
+        server = null;
+        executor = null;
+        logger.info("Stand-in server stopped: {}", getStats());
+    }
+
+    /**
+     * Origin the server listens on
+     * @return Origin such as http://127.0.0.1:8080
+     */
+    public String getOrigin() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Request statistics of this run
+     * @return Summary of served, injected error and not found responses
+     */
+    public String getStats() {
+        return String.format("served=%d, injectedErrors=%d, notFound=%d",
+                served.sum(), injectedErrors.sum(), notFound.sum());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            RouteShaping shaping = shapingFor(path);
+            sleep(shaping.latencyMillis());
+
+            if (shaping.errorRate() > 0 && ThreadLocalRandom.current().nextDouble() < shaping.errorRate()) {
+                injectedErrors.increment();
+                send(exchange, shaping.errorStatus(), "text/plain; charset=utf-8",
+                        "Injected error".getBytes(StandardCharsets.UTF_8), shaping);
+                return;
+            }
+
+            String fixture = path.endsWith("/") ? path + "index.html" : path;
+            byte[] body = fixtures.computeIfAbsent(fixture, this::loadFixture);
+            if (body.length == 0) {
+                notFound.increment();
+                send(exchange, 404, "text/plain; charset=utf-8",
+                        "Not found".getBytes(StandardCharsets.UTF_8), RouteShaping.NONE);
+                return;
+            }
+            served.increment();
+            send(exchange, 200, contentType(fixture), body, shaping);
+        }
+    }
+
+    /**
+     * Shaping of the route with the longest path prefix matching the request
+     */
+    private RouteShaping shapingFor(String path) {
+        RouteShaping best = RouteShaping.NONE;
+        int bestLength = -1;
+        for (Map.Entry<String, RouteShaping> route : routes.entrySet()) {
+            String prefix = route.getKey();
+            if (path.startsWith(prefix) && prefix.length() > bestLength) {
+                best = route.getValue();
+                bestLength = prefix.length();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Write the response, in chunks paced to the route's bandwidth when it has one
+     */
+    private void send(HttpExchange exchange, int status, String contentType, byte[] body, RouteShaping shaping)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        boolean head = "HEAD".equalsIgnoreCase(exchange.getRequestMethod());
+        exchange.sendResponseHeaders(status, head ? -1 : body.length);
+        if (head) {
+            return;
+        }
+        OutputStream out = exchange.getResponseBody();
+        if (shaping.bytesPerSecond() <= 0) {
+            out.write(body);
+            return;
+        }
+        long start = System.nanoTime();
+        for (int offset = 0; offset < body.length; offset += CHUNK_SIZE) {
+            int length = Math.min(CHUNK_SIZE, body.length - offset);
+            // Hold each chunk back until the limit allows it to arrive
+            long dueNanos = (offset + length) * 1_000_000_000L / shaping.bytesPerSecond();
+            sleep((dueNanos - (System.nanoTime() - start)) / 1_000_000);
+            out.write(body, offset, length);
+            out.flush();
+        }
+    }
+
+    /**
+     * Read a fixture from the classpath
+     * @return Fixture bytes, or an empty array if there is no such fixture
+     */
+    private byte[] loadFixture(String path) {
+        if (path.contains("..")) {
+            return new byte[0];
+        }
+        try (InputStream in = StandInServer.class.getClassLoader().getResourceAsStream(FIXTURE_ROOT + path)) {
+            return in == null ? new byte[0] : in.readAllBytes();
+        } catch (IOException e) {
+            logger.error("Failed to read stand-in fixture: {}", path, e);
+            return new byte[0];
+        }
+    }
+
+    private static String contentType(String path) {
+        String extension = path.substring(path.lastIndexOf('.') + 1).toLowerCase();
+        return CONTENT_TYPES.getOrDefault(extension, "application/octet-stream");
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.leumit.server;
+
+import com.leumit.config.ConfigManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+
+/**
+ * UrlRewriter - Points navigation to the site under test at the stand-in server while it runs
+ * URLs on the baseUrl host, with or without www, keep their path and query but get the stand-in origin.
+ * Without a running stand-in, URLs are returned unchanged.
+ */
+public class UrlRewriter {
+    private static final Logger logger = LoggerFactory.getLogger(UrlRewriter.class);
+    private static volatile String targetOrigin;
+    private static final String siteHost = stripWww(getHost(ConfigManager.getInstance().getProperty("baseUrl", "")));
+
+    /**
+     * Send site URLs to another origin
+     * @param origin Origin such as http://127.0.0.1:8080
+     */
+    public static void setTarget(String origin) {
+        targetOrigin = origin;
+        logger.info("Rewriting {} URLs to {}", siteHost, origin);
+    }
+
+    /**
+     * Stop rewriting URLs
+     */
+    public static void clear() {
+        targetOrigin = null;
+    }
+
+    /**
+     * Rewrite a URL of the site under test to the current target
+     * @param url URL to navigate to
+     * @return Rewritten URL, or the URL itself if it is not on the site or no target is set
+     */
+    public static String rewrite(String url) {
+        String origin = targetOrigin;
+        if (origin == null || siteHost.isEmpty()) {
+            return url;
+        }
+        try {
+            URI uri = URI.create(url);
+            if (!siteHost.equals(stripWww(uri.getHost()))) {
+                return url;
+            }
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            String query = uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery();
+            return origin + path + query;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    private static String getHost(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? "" : host.toLowerCase();
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    private static String stripWww(String host) {
+        if (host == null) {
+            return "";
+        }
+        host = host.toLowerCase();
+        return host.startsWith("www.") ? host.substring(4) : host;
+    }
+}
@@ -1,11 +1,12 @@
 package com.leumit.tests;
 
 import com.aventstack.extentreports.ExtentReports;
-import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 import com.leumit.config.ConfigManager;
 import com.leumit.context.TestContext;
 import com.leumit.drivers.DriverManager;
+import com.leumit.reporting.ReportEventSink;
+import com.leumit.reporting.ReportNode;
 import io.appium.java_client.AppiumDriver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,14 +59,14 @@ public class BaseTestMobile {
         context = TestContext.getInstance();
         context.setPlatform("mobile");
         
-        // Set device name
-        String deviceName = config.getProperty("deviceNameAndroid");
+        // Lease a device of its own, waiting until one is free
+        String deviceName = DriverManager.leaseDevice(config.getProperty("mobilePlatform", "android")).name();
         context.setDeviceName(deviceName);
         
-        // Create ExtentTest for this test method
+        // Create the report node for this test method
         String testName = method.getName();
-        ExtentTest test = extentReports.createTest(testName + " (" + deviceName + ")");
-        context.setExtentTest(test);
+        ReportNode test = ReportEventSink.getInstance().createTest(extentReports, testName + " (" + deviceName + ")");
+        context.setReportNode(test);
         
         // Initialize Appium Driver
         driver = DriverManager.getMobileDriver();
@@ -76,7 +77,7 @@ public class BaseTestMobile {
     @AfterMethod
     public void tearDownTest(ITestResult result) {
         // Log test result
-        ExtentTest test = context.getExtentTest();
+        ReportNode test = context.getReportNode();
         if (test != null) {
             if (result.getStatus() == ITestResult.FAILURE) {
                 test.fail("Test failed: " + result.getThrowable().getMessage());
@@ -87,6 +88,10 @@ public class BaseTestMobile {
             }
         }
         
+        // Hand the session back to the pool before the context forgets it
+        DriverManager.releaseMobileDriver();
+        DriverManager.releaseDevice();
+        
         // Reset TestContext for next test
         context.reset();
         
@@ -95,12 +100,12 @@ public class BaseTestMobile {
 
     @AfterSuite
     public void tearDownSuite() {
-        // Close the Appium driver
-        DriverManager.closeMobileDriver();
+        // Quit the pooled Appium sessions, together with anything else still open
+        DriverManager.closeAllFeatureBrowsers();
         
         // Flush ExtentReports
         if (extentReports != null) {
-            extentReports.flush();
+            ReportEventSink.getInstance().flush(extentReports);
             logger.info("ExtentReports flushed and completed.");
         }
     }
@@ -1,10 +1,11 @@
 package com.leumit.tests;
 
 import com.aventstack.extentreports.ExtentReports;
-import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 import com.leumit.context.TestContext;
 import com.leumit.drivers.DriverManager;
+import com.leumit.reporting.ReportEventSink;
+import com.leumit.reporting.ReportNode;
 import com.microsoft.playwright.Page;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,10 +57,10 @@ public class BaseTestWeb {
         context = TestContext.getInstance();
         context.setPlatform("web");
         
-        // Create ExtentTest for this test method
+        // Create the report node for this test method
         String testName = method.getName();
-        ExtentTest test = extentReports.createTest(testName);
-        context.setExtentTest(test);
+        ReportNode test = ReportEventSink.getInstance().createTest(extentReports, testName);
+        context.setReportNode(test);
         
         // Initialize Playwright Page
         page = DriverManager.getPage();
@@ -70,7 +71,7 @@ public class BaseTestWeb {
     @AfterMethod
     public void tearDownTest(ITestResult result) {
         // Log test result
-        ExtentTest test = context.getExtentTest();
+        ReportNode test = context.getReportNode();
         if (test != null) {
             if (result.getStatus() == ITestResult.FAILURE) {
                 test.fail("Test failed: " + result.getThrowable().getMessage());
@@ -94,7 +95,7 @@ public class BaseTestWeb {
         
         // Flush ExtentReports
         if (extentReports != null) {
-            extentReports.flush();
+            ReportEventSink.getInstance().flush(extentReports);
             logger.info("ExtentReports flushed and completed.");
         }
     }
@@ -1,41 +1,24 @@
 package com.leumit.utils;
 
-import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.MediaEntityBuilder;
 import com.aventstack.extentreports.Status;
 import com.leumit.context.TestContext;
-import com.leumit.drivers.DriverManager;
-import com.microsoft.playwright.Page;
-import io.appium.java_client.AppiumDriver;
-import org.openqa.selenium.OutputType;
-import org.openqa.selenium.TakesScreenshot;
+import com.leumit.reporting.ReportNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.testng.Assert;
 
-import java.io.File;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * AssertUtils - Utility class for assertions with ExtentReports integration
+ * By default an assertion fails immediately and logs its failure with a screenshot. Once soft
+ * assertions are enabled for a scenario, assertions are only recorded: assertAll reports every
+ * failure of the scenario together, with one screenshot and one DOM snapshot for all of them.
  */
 public class AssertUtils {
     private static final Logger logger = LoggerFactory.getLogger(AssertUtils.class);
-    private static final String SCREENSHOT_PATH = "target/screenshots";
-
-    static {
-        // Create screenshot directory if it doesn't exist
-        try {
-            Files.createDirectories(Paths.get(SCREENSHOT_PATH));
-        } catch (Exception e) {
-            logger.error("Failed to create screenshots directory", e);
-        }
-    }
 
     /**
      * Assert that a condition is true
@@ -47,6 +30,16 @@ public class AssertUtils {
         assertTrue(actual, true, passMessage, failMessage);
     }
 
+    /**
+     * Assert that a condition is true, building the messages only when they are used
+     * @param actual Actual condition
+     * @param passMessage Message for pass case
+     * @param failMessage Message for fail case
+     */
+    public static void assertTrue(boolean actual, Supplier<String> passMessage, Supplier<String> failMessage) {
+        check(actual, passMessage, failMessage);
+    }
+
     /**
      * Assert that two boolean values are equal
      * @param actual Actual value
@@ -55,35 +48,7 @@ public class AssertUtils {
      * @param failMessage Message for fail case
      */
     public static void assertTrue(boolean actual, boolean expected, String passMessage, String failMessage) {
-        TestContext context = TestContext.getInstance();
-        ExtentTest test = context.getExtentTest();
-        
-        try {
-            if (expected) {
-                Assert.assertTrue(actual, failMessage);
-            } else {
-                Assert.assertFalse(actual, failMessage);
-            }
-            
-            // Log pass in report
-            if (test != null) {
-                test.log(Status.PASS, passMessage);
-            }
-            logger.info(passMessage);
-        } catch (AssertionError e) {
-            // Take screenshot on failure
-            String screenshotPath = captureScreenshot();
-            
-            // Log failure with screenshot in report
-            if (test != null && screenshotPath != null) {
-                test.log(Status.FAIL, failMessage, MediaEntityBuilder.createScreenCaptureFromPath(screenshotPath).build());
-            } else if (test != null) {
-                test.log(Status.FAIL, failMessage);
-            }
-            
-            logger.error(failMessage);
-            throw e; // Re-throw the assertion error
-        }
+        check(actual == expected, () -> passMessage, () -> failMessage);
     }
 
     /**
@@ -94,32 +59,20 @@ public class AssertUtils {
      * @param failMessage Message for fail case
      */
     public static void assertEquals(String actual, String expected, String passMessage, String failMessage) {
-        TestContext context = TestContext.getInstance();
-        ExtentTest test = context.getExtentTest();
-        
-        try {
-            Assert.assertEquals(actual, expected, failMessage);
-            
-            // Log pass in report
-            if (test != null) {
-                test.log(Status.PASS, passMessage);
-            }
-            logger.info(passMessage);
-        } catch (AssertionError e) {
-            // Take screenshot on failure
-            String screenshotPath = captureScreenshot();
-            
-            // Log failure with screenshot in report
-            if (test != null && screenshotPath != null) {
-                test.log(Status.FAIL, failMessage + ": expected [" + expected + "] but found [" + actual + "]",
-                        MediaEntityBuilder.createScreenCaptureFromPath(screenshotPath).build());
-            } else if (test != null) {
-                test.log(Status.FAIL, failMessage + ": expected [" + expected + "] but found [" + actual + "]");
-            }
-            
-            logger.error(failMessage + ": expected [" + expected + "] but found [" + actual + "]");
-            throw e; // Re-throw the assertion error
-        }
+        assertEquals(actual, expected, () -> passMessage, () -> failMessage);
+    }
+
+    /**
+     * Assert that two strings are equal, building the messages only when they are used
+     * @param actual Actual string
+     * @param expected Expected string
+     * @param passMessage Message for pass case
+     * @param failMessage Message for fail case
+     */
+    public static void assertEquals(String actual, String expected,
+                                    Supplier<String> passMessage, Supplier<String> failMessage) {
+        check(actual == null ? expected == null : actual.equals(expected), passMessage,
+                () -> failMessage.get() + ": expected [" + expected + "] but found [" + actual + "]");
     }
 
     /**
@@ -130,32 +83,20 @@ public class AssertUtils {
      * @param failMessage Message for fail case
      */
     public static void assertContains(String actual, String expected, String passMessage, String failMessage) {
-        TestContext context = TestContext.getInstance();
-        ExtentTest test = context.getExtentTest();
-        
-        try {
-            Assert.assertTrue(actual.contains(expected), failMessage);
-            
-            // Log pass in report
-            if (test != null) {
-                test.log(Status.PASS, passMessage);
-            }
-            logger.info(passMessage);
-        } catch (AssertionError e) {
-            // Take screenshot on failure
-            String screenshotPath = captureScreenshot();
-            
-            // Log failure with screenshot in report
-            if (test != null && screenshotPath != null) {
-                test.log(Status.FAIL, failMessage + ": expected [" + expected + "] to be contained in [" + actual + "]",
-                        MediaEntityBuilder.createScreenCaptureFromPath(screenshotPath).build());
-            } else if (test != null) {
-                test.log(Status.FAIL, failMessage + ": expected [" + expected + "] to be contained in [" + actual + "]");
-            }
-            
-            logger.error(failMessage + ": expected [" + expected + "] to be contained in [" + actual + "]");
-            throw e; // Re-throw the assertion error
-        }
+        assertContains(actual, expected, () -> passMessage, () -> failMessage);
+    }
+
+    /**
+     * Assert that a string contains another string, building the messages only when they are used
+     * @param actual Actual string
+     * @param expected Expected substring
+     * @param passMessage Message for pass case
+     * @param failMessage Message for fail case
+     */
+    public static void assertContains(String actual, String expected,
+                                      Supplier<String> passMessage, Supplier<String> failMessage) {
+        check(actual != null && actual.contains(expected), passMessage,
+                () -> failMessage.get() + ": expected [" + expected + "] to be contained in [" + actual + "]");
     }
 
     /**
@@ -166,65 +107,144 @@ public class AssertUtils {
      * @param failMessage Message for fail case
      */
     public static void assertLessThan(long actual, long expected, String passMessage, String failMessage) {
+        assertLessThan(actual, expected, () -> passMessage, () -> failMessage);
+    }
+
+    /**
+     * Assert that a number is less than another number, building the messages only when they are used
+     * @param actual Actual number
+     * @param expected Expected maximum value
+     * @param passMessage Message for pass case
+     * @param failMessage Message for fail case
+     */
+    public static void assertLessThan(long actual, long expected,
+                                      Supplier<String> passMessage, Supplier<String> failMessage) {
+        check(actual < expected, passMessage,
+                () -> failMessage.get() + ": expected [" + actual + "] to be less than [" + expected + "]");
+    }
+
+    /**
+     * Assert that a value is present; fails immediately even with soft assertions, as the step goes on to use it
+     * @param actual Value the step depends on
+     * @param passMessage Message for pass case
+     * @param failMessage Message for fail case
+     */
+    public static void assertNotNull(Object actual, Supplier<String> passMessage, Supplier<String> failMessage) {
+        check(actual != null, passMessage, failMessage, false);
+    }
+
+    /**
+     * Record the assertions of the current scenario from now on instead of failing on the first one
+     */
+    public static void enableSoftAssertions() {
+        TestContext.getInstance().setSoftAssertions(new SoftAssertions());
+    }
+
+    /**
+     * Evaluate the soft assertions of the current scenario and stop recording them
+     * All failures are reported in one entry, with one screenshot and one DOM snapshot
+     * @throws AssertionError listing every failed assertion, if any failed
+     */
+    public static void assertAll() {
         TestContext context = TestContext.getInstance();
-        ExtentTest test = context.getExtentTest();
-        
-        try {
-            Assert.assertTrue(actual < expected, failMessage);
-            
-            // Log pass in report
-            if (test != null) {
-                test.log(Status.PASS, passMessage);
-            }
-            logger.info(passMessage);
-        } catch (AssertionError e) {
-            // Take screenshot on failure
-            String screenshotPath = captureScreenshot();
-            
-            // Log failure with screenshot in report
-            if (test != null && screenshotPath != null) {
-                test.log(Status.FAIL, failMessage + ": expected [" + actual + "] to be less than [" + expected + "]",
-                        MediaEntityBuilder.createScreenCaptureFromPath(screenshotPath).build());
-            } else if (test != null) {
-                test.log(Status.FAIL, failMessage + ": expected [" + actual + "] to be less than [" + expected + "]");
+        SoftAssertions softAssertions = context.getSoftAssertions();
+        if (softAssertions == null) {
+            return;
+        }
+        context.setSoftAssertions(null);
+        ReportNode test = context.getReportNode();
+        List<Supplier<String>> failures = softAssertions.getFailures();
+        if (failures.isEmpty()) {
+            if (softAssertions.getPassed() > 0 && test != null) {
+                test.log(Status.PASS, softAssertions.getPassed() + " assertions passed");
             }
-            
-            logger.error(failMessage + ": expected [" + actual + "] to be less than [" + expected + "]");
-            throw e; // Re-throw the assertion error
+            return;
         }
+
+        StringBuilder message = new StringBuilder()
+                .append(failures.size()).append(" of ").append(failures.size() + softAssertions.getPassed())
+                .append(" assertions failed");
+        for (int i = 0; i < failures.size(); i++) {
+            message.append("\n").append(i + 1).append(". ").append(failures.get(i).get());
+        }
+        logFailure(test, message.toString().replace("\n", "<br>"), true);
+        logger.error(message.toString());
+        throw new AssertionError(message.toString());
+    }
+
+    /**
+     * Pass or fail an assertion, or only record it when soft assertions are enabled
+     */
+    private static void check(boolean passed, Supplier<String> passMessage, Supplier<String> failMessage) {
+        check(passed, passMessage, failMessage, true);
     }
 
     /**
-     * Capture screenshot for current test
-     * @return Path to the captured screenshot or null if failed
+     * Pass or fail an assertion
+     * @param soft Whether the assertion may only be recorded when soft assertions are enabled
      */
-    private static String captureScreenshot() {
+    private static void check(boolean passed, Supplier<String> passMessage, Supplier<String> failMessage,
+                              boolean soft) {
         TestContext context = TestContext.getInstance();
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        String filename = "screenshot_" + timestamp + ".png";
-        String filePath = SCREENSHOT_PATH + File.separator + filename;
-        
-        try {
-            // For web tests using Playwright
-            if ("web".equals(context.getPlatform())) {
-                Page page = DriverManager.getPage();
-                Path path = Paths.get(filePath);
-                byte[] screenshotBytes = page.screenshot(new Page.ScreenshotOptions().setPath(path));
-                logger.info("Captured web screenshot: {}", filePath);
-                return filePath;
-            } 
-            // For mobile tests using Appium
-            else if ("mobile".equals(context.getPlatform())) {
-                AppiumDriver driver = DriverManager.getMobileDriver();
-                File screenshotFile = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
-                Files.copy(screenshotFile.toPath(), Paths.get(filePath));
-                logger.info("Captured mobile screenshot: {}", filePath);
-                return filePath;
+        SoftAssertions softAssertions = context.getSoftAssertions();
+        if (softAssertions != null && (soft || passed)) {
+            if (passed) {
+                softAssertions.recordPass();
+                if (logger.isDebugEnabled()) {
+                    logger.debug(passMessage.get());
+                }
+            } else {
+                softAssertions.recordFailure(failMessage);
+            }
+            return;
+        }
+
+        ReportNode test = context.getReportNode();
+        if (passed) {
+            String message = passMessage.get();
+            // Log pass in report
+            if (test != null) {
+                test.log(Status.PASS, message);
             }
-        } catch (Exception e) {
-            logger.error("Failed to capture screenshot", e);
+            logger.info(message);
+            return;
+        }
+        // Log failure with a screenshot, attached once it has been written
+        String message = failMessage.get();
+        logFailure(test, message, false);
+        logger.error(message);
+        throw new AssertionError(message);
+    }
+
+    /**
+     * Log a failure in the report together with a screenshot of the current scenario
+     * The evidence is written in the background; the entry is added when it is available
+     * @param test Report node of the scenario, may be null
+     * @param message Failure message
+     * @param withDom Whether a DOM snapshot is linked from the entry as well
+     */
+    private static void logFailure(ReportNode test, String message, boolean withDom) {
+        CompletableFuture<ScreenshotService.Capture> screenshot = ScreenshotService.getInstance().capture();
+        CompletableFuture<ScreenshotService.Capture> dom = withDom
+                ? ScreenshotService.getInstance().captureDom()
+                : CompletableFuture.completedFuture(null);
+        if (test == null) {
+            return;
         }
-        
-        return null;
+        // Tracked, so a report flushed after awaitPending already holds the entry
+        CompletableFuture<Void> logged = screenshot.exceptionally(error -> null)
+                .thenCombine(dom.exceptionally(error -> null), (capture, domCapture) -> {
+                    String details = domCapture == null ? message
+                            : message + "<br><a href='" + domCapture.path() + "' target='_blank'>DOM snapshot</a>";
+                    if (capture != null) {
+                        // Identical screens share one stored image, the title tells the captures apart
+                        test.log(Status.FAIL, details,
+                                MediaEntityBuilder.createScreenCaptureFromPath(capture.path(), capture.name()).build());
+                    } else {
+                        test.log(Status.FAIL, details);
+                    }
+                    return null;
+                });
+        ScreenshotService.getInstance().track(logged);
     }
-} 
\ No newline at end of file
+}
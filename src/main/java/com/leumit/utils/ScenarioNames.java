@@ -0,0 +1,89 @@
+package com.leumit.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ScenarioNames - Derives the report names of features and steps
+ */
+public class ScenarioNames {
+    private static final Logger logger = LoggerFactory.getLogger(ScenarioNames.class);
+
+    /**
+     * Extract feature name from feature path
+     * @param featurePath Feature file path
+     * @return Formatted feature name
+     */
+    public static String extractFeatureName(String featurePath) {
+        // Debug logging to understand what's happening
+        logger.info("Feature path from scenario: {}", featurePath);
+
+        // Extract filename from path and convert to title case
+        if (featurePath != null && featurePath.contains("/")) {
+            String fileName = featurePath.substring(featurePath.lastIndexOf('/') + 1);
+            logger.info("Extracted fileName: {}", fileName);
+
+            if (fileName.endsWith(".feature")) {
+                fileName = fileName.substring(0, fileName.indexOf(".feature"));
+                logger.info("After removing .feature: {}", fileName);
+            }
+            // Convert snake_case to Title Case
+            String formattedName = formatFeatureName(fileName);
+            logger.info("Formatted feature name: {}", formattedName);
+            return formattedName;
+        }
+        return "Unknown Feature";
+    }
+
+    /**
+     * Format feature name to title case
+     * @param name Raw feature name
+     * @return Formatted feature name
+     */
+    public static String formatFeatureName(String name) {
+        // Replace underscores with spaces
+        name = name.replace('_', ' ');
+
+        // Capitalize first letter of each word
+        StringBuilder result = new StringBuilder();
+        boolean capitalizeNext = true;
+
+        for (char c : name.toCharArray()) {
+            if (Character.isSpaceChar(c)) {
+                capitalizeNext = true;
+                result.append(c);
+            } else if (capitalizeNext) {
+                result.append(Character.toUpperCase(c));
+                capitalizeNext = false;
+            } else {
+                result.append(Character.toLowerCase(c));
+            }
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * Extract the current step text from the scenario
+     * @param scenarioString String representation of the Cucumber scenario
+     * @return Step text or empty string if not available
+     */
+    public static String extractStepText(String scenarioString) {
+        try {
+            // Look for step text pattern
+            if (scenarioString.contains("Step [")) {
+                int stepStart = scenarioString.lastIndexOf("Step [") + 6; // +6 to skip "Step ["
+                int stepEnd = scenarioString.indexOf("]", stepStart);
+
+                if (stepEnd > stepStart) {
+                    return scenarioString.substring(stepStart, stepEnd);
+                }
+            }
+
+            return "";
+        } catch (Exception e) {
+            logger.error("Error extracting step text", e);
+            return "";
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.leumit.utils;
+
+import com.leumit.config.ConfigManager;
+import com.leumit.context.TestContext;
+import com.leumit.drivers.DriverManager;
+import com.microsoft.playwright.Locator;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.options.ScreenshotType;
+import io.appium.java_client.AppiumDriver;
+import io.cucumber.java.Scenario;
+import org.openqa.selenium.OutputType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * ScreenshotService - Captures screenshots of the current scenario and writes them in the background
+ * Only grabbing the raw bytes happens on the test thread, since Playwright pages and Appium drivers
+ * belong to it. Decoding, hashing and disk I/O run on a small writer pool with a bounded queue; when the
+ * queue is full the test thread writes the file itself, which bounds memory held by pending screenshots.
+ * Images go to a content-addressed ScreenshotStore, so identical screens are kept once.
+ */
+public class ScreenshotService {
+    private static final Logger logger = LoggerFactory.getLogger(ScreenshotService.class);
+
+    private final ScreenshotStore store;
+    private final ThreadPoolExecutor writer;
+    private final boolean jpeg;
+    private final int jpegQuality;
+    private final String mode;
+    private final String defaultElement;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * A written screenshot
+     * @param name Name unique to the scenario and step, used as the report title
+     * @param path Path of the stored image, shared by identical screenshots
+     */
+    public record Capture(String name, String path) {
+    }
+
+    private ScreenshotService() {
+        ConfigManager config = ConfigManager.getInstance();
+        this.store = new ScreenshotStore(Paths.get(config.getProperty("screenshotPath", "target/screenshots")));
+        this.jpeg = "jpeg".equalsIgnoreCase(config.getProperty("screenshotFormat", "png"));
+        this.jpegQuality = Math.min(100, Math.max(1, config.getIntProperty("screenshotJpegQuality", 80)));
+        this.mode = config.getProperty("screenshotMode", "viewport");
+        this.defaultElement = config.getProperty("screenshotElement", "");
+        int threads = Math.max(1, config.getIntProperty("screenshotWriterThreads", 2));
+        int queueSize = Math.max(1, config.getIntProperty("screenshotQueueSize", 32));
+
+        AtomicLong threadIndex = new AtomicLong();
+        this.writer = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "screenshot-writer-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.writer.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Holder of the instance, created on first use by the class loader without locking
+     */
+    private static class Holder {
+        private static final ScreenshotService INSTANCE = new ScreenshotService();
+    }
+
+    /**
+     * Get the shared screenshot service
+     * @return ScreenshotService instance
+     */
+    public static ScreenshotService getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Capture the screen of the current scenario
+     * Must be called on the scenario's thread; the returned future completes once the image is stored
+     * @return Future of the screenshot, completing with null if nothing could be captured
+     */
+    public CompletableFuture<Capture> capture() {
+        TestContext context = TestContext.getInstance();
+        Supplier<byte[]> encoder;
+        try {
+            if ("mobile".equals(context.getPlatform())) {
+                AppiumDriver driver = DriverManager.getMobileDriver();
+                // Base64 PNG is what the driver returns, decoding and re-encoding is left to the writer
+                String base64 = driver.getScreenshotAs(OutputType.BASE64);
+                encoder = () -> {
+                    byte[] png = Base64.getMimeDecoder().decode(base64);
+                    return jpeg ? toJpeg(png) : png;
+                };
+            } else {
+                Page page = getScenarioPage(context.getScenario());
+                if (page == null || page.isClosed()) {
+                    logger.warn("No open page to capture a screenshot from");
+                    return CompletableFuture.completedFuture(null);
+                }
+                byte[] image = captureWeb(page, context);
+                encoder = () -> image;
+            }
+        } catch (Exception e) {
+            logger.error("Failed to capture screenshot", e);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String name = createName(context);
+        return track(CompletableFuture.supplyAsync(() -> write(name, encoder, jpeg ? "jpg" : "png"), writer));
+    }
+
+    /**
+     * Capture the DOM of the current web page, or the page source of the current mobile screen
+     * Must be called on the scenario's thread; the returned future completes once the snapshot is stored
+     * @return Future of the snapshot, completing with null if nothing could be captured
+     */
+    public CompletableFuture<Capture> captureDom() {
+        TestContext context = TestContext.getInstance();
+        String source;
+        String extension;
+        try {
+            if ("mobile".equals(context.getPlatform())) {
+                source = DriverManager.getMobileDriver().getPageSource();
+                extension = "xml";
+            } else {
+                Page page = getScenarioPage(context.getScenario());
+                if (page == null || page.isClosed()) {
+                    logger.warn("No open page to capture a DOM snapshot from");
+                    return CompletableFuture.completedFuture(null);
+                }
+                source = page.content();
+                extension = "html";
+            }
+        } catch (Exception e) {
+            logger.error("Failed to capture DOM snapshot", e);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String name = createName(context) + "_dom";
+        return track(CompletableFuture.supplyAsync(
+                () -> write(name, () -> source.getBytes(StandardCharsets.UTF_8), extension), writer));
+    }
+
+    /**
+     * Have awaitPending wait for work that depends on a capture, e.g. the report entry it is attached to
+     * @param future Work to wait for
+     * @return The same future
+     */
+    public <T> CompletableFuture<T> track(CompletableFuture<T> future) {
+        pending.add(future);
+        future.whenComplete((result, error) -> pending.remove(future));
+        return future;
+    }
+
+    /**
+     * Wait for screenshots that are still being written and the report entries they belong to,
+     * e.g. before flushing the report
+     * @param timeout Maximum time to wait
+     */
+    public void awaitPending(Duration timeout) {
+        try {
+            CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+                    .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Not all screenshots were written: {} still pending", pending.size());
+        }
+    }
+
+    /**
+     * Statistics of the underlying content-addressed store
+     * @return ScreenshotStore of this service
+     */
+    public ScreenshotStore getStore() {
+        return store;
+    }
+
+    /**
+     * Capture a web page as configured: viewport, full page or clipped to an element
+     * The element comes from the screenshotElement attribute of the scenario, else from the configuration
+     */
+    private byte[] captureWeb(Page page, TestContext context) {
+        ScreenshotType type = jpeg ? ScreenshotType.JPEG : ScreenshotType.PNG;
+        Integer quality = jpeg ? jpegQuality : null;
+
+        if ("element".equalsIgnoreCase(mode)) {
+            String selector = context.getAttribute("screenshotElement");
+            if (selector == null) {
+                selector = defaultElement;
+            }
+            if (!selector.isEmpty()) {
+                Locator element = page.locator(selector).first();
+                if (element.isVisible()) {
+                    return element.screenshot(new Locator.ScreenshotOptions().setType(type).setQuality(quality));
+                }
+                logger.info("Screenshot element not visible, capturing the viewport: {}", selector);
+            }
+        }
+        return page.screenshot(new Page.ScreenshotOptions()
+                .setType(type)
+                .setQuality(quality)
+                .setFullPage("fullPage".equalsIgnoreCase(mode)));
+    }
+
+    /**
+     * Store a screenshot or DOM snapshot on the writer pool
+     * @return The stored capture, or null if storing failed
+     */
+    private Capture write(String name, Supplier<byte[]> encoder, String extension) {
+        try {
+            Path blob = store.store(encoder.get(), extension);
+            logger.info("Captured {}: {}", name, blob);
+            return new Capture(name, blob.toString());
+        } catch (Exception e) {
+            logger.error("Failed to store screenshot: {}", name, e);
+            return null;
+        }
+    }
+
+    /**
+     * Re-encode a PNG as JPEG at the configured quality
+     */
+    private byte[] toJpeg(byte[] png) {
+        try {
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(png));
+            // JPEG has no alpha channel
+            BufferedImage rgb = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+            rgb.createGraphics().drawImage(source, 0, 0, Color.WHITE, null);
+
+            ImageWriter imageWriter = ImageIO.getImageWritersByFormatName("jpeg").next();
+            ImageWriteParam param = imageWriter.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality / 100f);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+                imageWriter.setOutput(imageOut);
+                imageWriter.write(null, new IIOImage(rgb, null, null), param);
+            } finally {
+                imageWriter.dispose();
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode screenshot as JPEG", e);
+        }
+    }
+
+    /**
+     * Page of the current scenario: the feature's page, else the thread's page
+     */
+    private Page getScenarioPage(Scenario scenario) {
+        if (scenario != null) {
+            Page page = DriverManager.getPageForFeature(scenario.getUri().toString());
+            if (page != null) {
+                return page;
+            }
+        }
+        return DriverManager.getPage();
+    }
+
+    /**
+     * Name unique across threads: scenario, step and a run-wide sequence number
+     */
+    private String createName(TestContext context) {
+        Scenario scenario = context.getScenario();
+        String scenarioName = scenario != null ? scenario.getName() : "screenshot";
+        String slug = scenarioName.toLowerCase().replaceAll("[^\\p{L}\\p{N}]+", "_").replaceAll("^_|_$", "");
+        if (slug.length() > 60) {
+            slug = slug.substring(0, 60);
+        }
+        Integer stepIndex = context.getAttribute("stepIndex");
+        String step = stepIndex != null ? "_step" + (stepIndex + 1) : "";
+        return slug + step + "_" + sequence.incrementAndGet();
+    }
+}
@@ -0,0 +1,108 @@
+package com.leumit.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ScreenshotStore - Content-addressed storage of screenshot images
+ * Every image is stored once under the SHA-256 of its bytes, so the same broken screen captured
+ * by many failures takes the disk space of one. Blobs are written to a temporary file and moved
+ * into place, which keeps concurrent writers of the same image from seeing a partial file.
+ */
+public class ScreenshotStore {
+    private static final Logger logger = LoggerFactory.getLogger(ScreenshotStore.class);
+
+    private final Path directory;
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    /**
+     * Constructor for ScreenshotStore
+     * @param directory Directory holding the blobs
+     */
+    public ScreenshotStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            logger.error("Failed to create screenshot store directory: {}", directory, e);
+        }
+    }
+
+    /**
+     * Store an image, unless an identical one is already stored
+     * @param bytes Encoded image
+     * @param extension File extension of the encoding, e.g. png or jpg
+     * @return Path of the blob holding the image
+     */
+    public Path store(byte[] bytes, String extension) throws IOException {
+        stores.increment();
+        Path blob = directory.resolve(sha256(bytes) + "." + extension);
+        if (Files.exists(blob)) {
+            hits.increment();
+            bytesSaved.add(bytes.length);
+            return blob;
+        }
+
+        Path temp = Files.createTempFile(directory, "blob", ".tmp");
+        try {
+            Files.write(temp, bytes);
+            Files.move(temp, blob, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            bytesWritten.add(bytes.length);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return blob;
+    }
+
+    public long getStoreCount() {
+        return stores.sum();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    /**
+     * Share of stored images that were already present
+     * @return Hit ratio between 0 and 1
+     */
+    public double getHitRatio() {
+        long total = getStoreCount();
+        return total == 0 ? 0 : (double) getHitCount() / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("stored=%d, unique=%d, hitRatio=%.1f%%, written=%d KB, saved=%d KB",
+                getStoreCount(), getStoreCount() - getHitCount(), getHitRatio() * 100,
+                getBytesWritten() / 1024, getBytesSaved() / 1024);
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
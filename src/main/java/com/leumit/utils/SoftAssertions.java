@@ -0,0 +1,31 @@
+package com.leumit.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * SoftAssertions - Assertion outcomes of one scenario, evaluated together when it ends
+ * Recording is a counter increment for a pass and a list append for a failure; failure messages
+ * stay suppliers until AssertUtils.assertAll builds them. Used by a single scenario thread.
+ */
+public class SoftAssertions {
+    private final List<Supplier<String>> failures = new ArrayList<>();
+    private int passed;
+
+    void recordPass() {
+        passed++;
+    }
+
+    void recordFailure(Supplier<String> message) {
+        failures.add(message);
+    }
+
+    int getPassed() {
+        return passed;
+    }
+
+    List<Supplier<String>> getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,208 @@
+package com.leumit.drivers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.android.AndroidDriver;
+import io.appium.java_client.android.options.UiAutomator2Options;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * MobileSessionPoolTest - Tests of session reuse and recycling against a stub Appium server
+ * The stub answers the few endpoints the pool uses: new session, app state, terminate, activate and quit.
+ */
+public class MobileSessionPoolTest {
+    private static final String APP_ID = "com.leumit.app";
+
+    private StubAppiumServer server;
+    private MobileDevice device;
+    private MobileDevice otherDevice;
+    private final List<AppiumDriver> quit = new CopyOnWriteArrayList<>();
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        server = new StubAppiumServer();
+        device = new MobileDevice("Pixel 7", "android", "emulator-5554", 8201, server.url());
+        otherDevice = new MobileDevice("Pixel 8", "android", "emulator-5556", 8202, server.url());
+        quit.clear();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void releasedSessionIsReusedWithItsAppReset() {
+        MobileSessionPool pool = pool(0);
+        AppiumDriver first = pool.acquire(device);
+        pool.release(first);
+        AppiumDriver second = pool.acquire(device);
+
+        Assert.assertSame(second, first);
+        Assert.assertEquals(server.sessionsCreated.get(), 1);
+        Assert.assertEquals(server.count("terminateApp"), 1);
+        Assert.assertEquals(server.count("activateApp"), 1);
+        Assert.assertTrue(quit.isEmpty());
+        Assert.assertTrue(pool.toString().startsWith("created=1, reused=1"), pool.toString());
+    }
+
+    @Test
+    public void sessionsAreKeptPerDevice() {
+        MobileSessionPool pool = pool(0);
+        AppiumDriver first = pool.acquire(device);
+        pool.release(first);
+        AppiumDriver onOtherDevice = pool.acquire(otherDevice);
+
+        Assert.assertNotSame(onOtherDevice, first);
+        Assert.assertEquals(server.sessionsCreated.get(), 2);
+    }
+
+    @Test
+    public void sessionFailingHealthCheckIsRecycled() {
+        MobileSessionPool pool = pool(0);
+        AppiumDriver first = pool.acquire(device);
+        pool.release(first);
+        server.deadSessions.add(first.getSessionId().toString());
+        AppiumDriver second = pool.acquire(device);
+
+        Assert.assertNotSame(second, first);
+        Assert.assertEquals(quit, List.of(first));
+        Assert.assertEquals(server.sessionsCreated.get(), 2);
+    }
+
+    @Test
+    public void sessionReachingMaxUsesIsRecycled() {
+        MobileSessionPool pool = pool(2);
+        AppiumDriver first = pool.acquire(device);
+        pool.release(first);
+        Assert.assertSame(pool.acquire(device), first);
+        pool.release(first);
+
+        Assert.assertEquals(quit, List.of(first));
+        AppiumDriver third = pool.acquire(device);
+        Assert.assertNotSame(third, first);
+        Assert.assertEquals(server.sessionsCreated.get(), 2);
+    }
+
+    @Test
+    public void sessionFailingAppResetIsRecycled() {
+        MobileSessionPool pool = pool(0);
+        AppiumDriver first = pool.acquire(device);
+        server.failingResets.add(first.getSessionId().toString());
+        pool.release(first);
+
+        Assert.assertEquals(quit, List.of(first));
+        Assert.assertNotSame(pool.acquire(device), first);
+        Assert.assertEquals(server.sessionsCreated.get(), 2);
+    }
+
+    private MobileSessionPool pool(int maxUses) {
+        return new MobileSessionPool(this::createDriver, driver -> {
+            quit.add(driver);
+            driver.quit();
+        }, platform -> APP_ID, MobileSessionPool.ResetMode.RESTART, maxUses);
+    }
+
+    private AppiumDriver createDriver(MobileDevice target) {
+        try {
+            return new AndroidDriver(new URL(target.appiumUrl()), new UiAutomator2Options().setUdid(target.udid()));
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * StubAppiumServer - Answers the W3C and Appium endpoints the pool uses, with sessions that can be made to fail
+     */
+    private static final class StubAppiumServer {
+        private static final Pattern MOBILE_SCRIPT = Pattern.compile("\"script\"\\s*:\\s*\"mobile: (\\w+)\"");
+
+        private final HttpServer httpServer;
+        private final AtomicInteger sessionsCreated = new AtomicInteger();
+        private final Set<String> deadSessions = ConcurrentHashMap.newKeySet();
+        private final Set<String> failingResets = ConcurrentHashMap.newKeySet();
+        private final List<String> commands = new CopyOnWriteArrayList<>();
+
+        private StubAppiumServer() throws IOException {
+            httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            httpServer.createContext("/", this::handle);
+            httpServer.start();
+        }
+
+        private String url() {
+            return "http://127.0.0.1:" + httpServer.getAddress().getPort();
+        }
+
+        private void stop() {
+            httpServer.stop(0);
+        }
+
+        private int count(String command) {
+            return (int) commands.stream().filter(command::equals).count();
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            String[] path = exchange.getRequestURI().getPath().replaceAll("^/|/$", "").split("/");
+            if (path.length == 1 && "POST".equals(exchange.getRequestMethod())) {
+                String sessionId = "session-" + sessionsCreated.incrementAndGet();
+                respond(exchange, 200, "{\"value\":{\"sessionId\":\"" + sessionId + "\",\"capabilities\":"
+                        + "{\"platformName\":\"ANDROID\",\"automationName\":\"UiAutomator2\"}}}");
+                return;
+            }
+            String sessionId = path.length > 1 ? path[1] : "";
+            String command = command(path, body);
+            commands.add(command);
+            if (deadSessions.contains(sessionId)) {
+                respond(exchange, 404, error("invalid session id"));
+            } else if (failingResets.contains(sessionId) && "terminateApp".equals(command)) {
+                respond(exchange, 500, error("unknown error"));
+            } else if ("queryAppState".equals(command)) {
+                respond(exchange, 200, "{\"value\":4}");
+            } else if ("terminateApp".equals(command)) {
+                respond(exchange, 200, "{\"value\":true}");
+            } else {
+                respond(exchange, 200, "{\"value\":null}");
+            }
+        }
+
+        /**
+         * The app commands arrive as "mobile: <command>" scripts on execute/sync; other commands are named by their path
+         */
+        private static String command(String[] path, String body) {
+            Matcher script = MOBILE_SCRIPT.matcher(body);
+            return script.find() ? script.group(1) : path[path.length - 1];
+        }
+
+        private static String error(String error) {
+            return "{\"value\":{\"error\":\"" + error + "\",\"message\":\"Stub " + error + "\",\"stacktrace\":\"\"}}";
+        }
+
+        private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(bytes);
+            }
+        }
+    }
+}
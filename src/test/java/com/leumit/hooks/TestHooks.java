@@ -1,12 +1,28 @@
 package com.leumit.hooks;
 
 import com.aventstack.extentreports.ExtentReports;
-import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 import com.aventstack.extentreports.reporter.configuration.Theme;
 import com.leumit.config.ConfigManager;
 import com.leumit.context.TestContext;
 import com.leumit.drivers.DriverManager;
+import com.leumit.drivers.MobileDevice;
+import com.leumit.network.HarArchive;
+import com.leumit.pages.mobile.AdaptiveWait;
+import com.leumit.pages.mobile.PageSourceCache;
+import com.leumit.network.NetworkRouter;
+import com.leumit.network.RoutingProfile;
+import com.leumit.performance.BaselineVerdict;
+import com.leumit.performance.PageLoadMetrics;
+import com.leumit.performance.PerformanceHistory;
+import com.leumit.reporting.ReportEventSink;
+import com.leumit.reporting.ReportNode;
+import com.leumit.reporting.StreamingReport;
+import com.leumit.server.StandInServer;
+import com.leumit.utils.AssertUtils;
+import com.leumit.utils.ScenarioNames;
+import com.leumit.utils.ScreenshotService;
+import com.microsoft.playwright.Page;
 import io.cucumber.java.After;
 import io.cucumber.java.AfterAll;
 import io.cucumber.java.Before;
@@ -20,12 +36,16 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.TimeUnit;
 
 /**
  * TestHooks - Cucumber hooks for setup and teardown
@@ -33,23 +53,42 @@ import java.util.concurrent.locks.ReentrantLock;
 public class TestHooks {
     private static final Logger logger = LoggerFactory.getLogger(TestHooks.class);
     private static ExtentReports extentReports;
-    private final TestContext context = TestContext.getInstance();
+    
+    // In streaming mode every feature gets its own report, written as soon as the feature is done
+    private static final boolean streamingReport =
+            "streaming".equalsIgnoreCase(ConfigManager.getInstance().getProperty("reportMode", "single"));
+    private final TestContext context;
     private final ConfigManager config = ConfigManager.getInstance();
     
     // We'll use a ConcurrentHashMap to store features by their URI
-    private static final Map<String, ExtentTest> featureMap = new ConcurrentHashMap<>();
+    private static final Map<String, ReportNode> featureMap = new ConcurrentHashMap<>();
     
     // Track which scenarios have been processed by URI and scenario name
     private static final Map<String, Boolean> processedScenarios = new ConcurrentHashMap<>();
     
     // Track which features have browsers initialized
     private static final Set<String> initializedFeatures = ConcurrentHashMap.newKeySet();
-    
-    // Use a lock to synchronize feature node creation
-    private static final ReentrantLock featureLock = new ReentrantLock();
+
+    /**
+     * Create the hooks of a scenario
+     * @param context Scenario context, shared with the step definitions by the object factory
+     */
+    public TestHooks(TestContext context) {
+        this.context = context;
+    }
 
     @BeforeAll
     public static void beforeAll() {
+        // The stand-in must be up before the first page is opened, in every report mode
+        if (StandInServer.isEnabled()) {
+            StandInServer.getInstance().start(ConfigManager.getInstance().getIntProperty("standinPort", 0));
+        }
+        
+        if (streamingReport) {
+            logger.info("Streaming report mode, feature reports are written as features finish");
+            return;
+        }
+        
         // Initialize ExtentReports
         String reportPath = "target/extent-reports/";
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
@@ -68,11 +107,33 @@ public class TestHooks {
         
         extentReports = new ExtentReports();
         extentReports.attachReporter(sparkReporter);
-        extentReports.setSystemInfo("Operating System", System.getProperty("os.name"));
+        ReportEventSink.getInstance().setSystemInfo(extentReports, "Operating System", System.getProperty("os.name"));
         
         logger.info("ExtentReports initialized with report: {}", reportName);
     }
 
+    @Before(order = Integer.MIN_VALUE)
+    public void bindContext() {
+        // Framework code outside the glue finds the scenario's context through TestContext.getInstance
+        TestContext.bind(context);
+    }
+
+    @Before(order = 0)
+    public void startPerformanceClock(Scenario scenario) {
+        // Timings are appended to the performance history when the scenario ends
+        context.setAttribute("scenarioStartNanos", System.nanoTime());
+        context.setAttribute("stepIndex", 0);
+    }
+
+    @Before(order = 1)
+    public void enableSoftAssertions(Scenario scenario) {
+        // Assertions are only recorded and evaluated together in verifySoftAssertions
+        if (config.getBooleanProperty("softAssertions", false)
+                || scenario.getSourceTagNames().contains("@softAssertions")) {
+            AssertUtils.enableSoftAssertions();
+        }
+    }
+
     @Before("@web")
     public void beforeWebScenario(Scenario scenario) {
         // Set platform to web
@@ -80,20 +141,13 @@ public class TestHooks {
         
         // Get feature URI and name 
         String featureUri = scenario.getUri().toString();
-        String featureName = extractFeatureName(featureUri);
-        
-        // Debug logging to understand our feature tracking
-        logger.info("Checking if feature has a browser: {}", featureUri);
-        logger.info("Feature initialized status: {}", DriverManager.hasFeatureBrowser(featureUri));
-        
-        // Initialize browser only once per feature
-        if (!DriverManager.hasFeatureBrowser(featureUri)) {
-            logger.info("Initializing browser for feature: {}", featureName);
-            DriverManager.initializeDriverForFeature(featureUri);
-            logger.info("Feature is now initialized: {}", DriverManager.hasFeatureBrowser(featureUri));
-        } else {
-            logger.info("Browser already initialized for feature: {}", featureName);
-        }
+        String featureName = ScenarioNames.extractFeatureName(featureUri);
+        
+        // Take a pooled page on this worker's shared browser, isolated as configured
+        Page page = DriverManager.acquirePageForScenario(featureUri);
+        
+        // Route the page as the scenario's tags ask, e.g. @lean or @no-third-party
+        NetworkRouter.apply(page, RoutingProfile.fromTags(scenario.getSourceTagNames(), NetworkRouter.getDefaultProfile()));
         
         // Create a unique key for each scenario to ensure it's only processed once
         String scenarioKey = featureUri + ":" + scenario.getName();
@@ -104,12 +158,12 @@ public class TestHooks {
             return;
         }
         
-        // Get or create feature test - using synchronized method for thread safety
-        ExtentTest featureTest = getFeatureTestSynchronized(featureUri, featureName);
+        // Get or create feature test - creation is only queued, so this never blocks
+        ReportNode featureTest = getFeatureTest(featureUri, featureName);
         
         // Create scenario test node as child of feature
-        ExtentTest scenarioNode = featureTest.createNode(scenario.getName());
-        context.setExtentTest(scenarioNode);
+        ReportNode scenarioNode = featureTest.createNode(scenario.getName());
+        context.setReportNode(scenarioNode);
         
         // Add tags to report
         scenario.getSourceTagNames().forEach(tag -> scenarioNode.assignCategory(tag));
@@ -128,13 +182,18 @@ public class TestHooks {
         // Set platform to mobile
         context.setPlatform("mobile");
         
-        // Set device name
-        String deviceName = config.getProperty("deviceNameAndroid");
+        // Lease a device of its own, waiting until one is free; @ios or @android pick the platform
+        Set<String> tags = Set.copyOf(scenario.getSourceTagNames());
+        String platform = tags.contains("@ios") ? "ios"
+                : tags.contains("@android") ? "android"
+                : config.getProperty("mobilePlatform", "android");
+        MobileDevice device = DriverManager.leaseDevice(platform);
+        String deviceName = device.name();
         context.setDeviceName(deviceName);
         
         // Get feature URI and name
         String featureUri = scenario.getUri().toString();
-        String featureName = extractFeatureName(featureUri);
+        String featureName = ScenarioNames.extractFeatureName(featureUri);
         
         // Create a unique key for each scenario to ensure it's only processed once
         String scenarioKey = featureUri + ":" + scenario.getName();
@@ -145,12 +204,12 @@ public class TestHooks {
             return;
         }
         
-        // Get or create feature test - using synchronized method for thread safety
-        ExtentTest featureTest = getFeatureTestSynchronized(featureUri, featureName);
+        // Get or create feature test - creation is only queued, so this never blocks
+        ReportNode featureTest = getFeatureTest(featureUri, featureName);
         
         // Create scenario test node as child of feature
-        ExtentTest scenarioNode = featureTest.createNode(scenario.getName() + " (" + deviceName + ")");
-        context.setExtentTest(scenarioNode);
+        ReportNode scenarioNode = featureTest.createNode(scenario.getName() + " (" + deviceName + ")");
+        context.setReportNode(scenarioNode);
         
         // Add tags to report
         scenario.getSourceTagNames().forEach(tag -> scenarioNode.assignCategory(tag));
@@ -165,96 +224,81 @@ public class TestHooks {
     }
     
     /**
-     * Extract feature name from feature path
-     * @param featurePath Feature file path
-     * @return Formatted feature name
-     */
-    private String extractFeatureName(String featurePath) {
-        // Debug logging to understand what's happening
-        logger.info("Feature path from scenario: {}", featurePath);
-        
-        // Extract filename from path and convert to title case
-        if (featurePath != null && featurePath.contains("/")) {
-            String fileName = featurePath.substring(featurePath.lastIndexOf('/') + 1);
-            logger.info("Extracted fileName: {}", fileName);
-            
-            if (fileName.endsWith(".feature")) {
-                fileName = fileName.substring(0, fileName.indexOf(".feature"));
-                logger.info("After removing .feature: {}", fileName);
-            }
-            // Convert snake_case to Title Case
-            String formattedName = formatFeatureName(fileName);
-            logger.info("Formatted feature name: {}", formattedName);
-            return formattedName;
-        }
-        return "Unknown Feature";
-    }
-    
-    /**
-     * Format feature name to title case
-     * @param name Raw feature name
-     * @return Formatted feature name
-     */
-    private String formatFeatureName(String name) {
-        // Replace underscores with spaces
-        name = name.replace('_', ' ');
-        
-        // Capitalize first letter of each word
-        StringBuilder result = new StringBuilder();
-        boolean capitalizeNext = true;
-        
-        for (char c : name.toCharArray()) {
-            if (Character.isSpaceChar(c)) {
-                capitalizeNext = true;
-                result.append(c);
-            } else if (capitalizeNext) {
-                result.append(Character.toUpperCase(c));
-                capitalizeNext = false;
-            } else {
-                result.append(Character.toLowerCase(c));
-            }
-        }
-        
-        return result.toString();
-    }
-    
-    /**
-     * Thread-safe method to get or create a feature test node
-     * Uses ReentrantLock to ensure only one thread can create a feature at a time
+     * Get or create the report node of a feature
+     * The node is only created once per feature; creating it just queues an event on the report sink
      * 
      * @param featureUri Feature URI used as the key
      * @param featureName Display name for the feature
-     * @return ExtentTest for the feature
+     * @return ReportNode for the feature
      */
-    private ExtentTest getFeatureTestSynchronized(String featureUri, String featureName) {
-        // First try to get without locking (optimistic)
-        ExtentTest existingTest = featureMap.get(featureUri);
-        if (existingTest != null) {
-            return existingTest;
+    private ReportNode getFeatureTest(String featureUri, String featureName) {
+        return featureMap.computeIfAbsent(featureUri, uri -> {
+            ExtentReports reports = streamingReport
+                    ? StreamingReport.getInstance().reportFor(uri, featureName)
+                    : extentReports;
+            return ReportEventSink.getInstance().createTest(reports, featureName);
+        });
+    }
+
+    @After(order = 30000)
+    public void verifySoftAssertions() {
+        // Runs first, while the page or session is still there for the evidence, and fails the
+        // scenario before its timings would be added to the performance history
+        AssertUtils.assertAll();
+    }
+
+    @After(order = 20000)
+    public void recordPerformanceHistory(Scenario scenario) {
+        Long startNanos = context.getAttribute("scenarioStartNanos");
+        // Failed runs would poison the baseline, only passing ones are kept
+        if (startNanos == null || scenario.isFailed()) {
+            return;
+        }
+        PerformanceHistory history = PerformanceHistory.getInstance();
+        boolean checkRegressions = scenario.getSourceTagNames().contains("@performance");
+        List<String> regressions = new ArrayList<>();
+        
+        Map<String, Double> measurements = new LinkedHashMap<>();
+        measurements.put("duration", (double) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        PageLoadMetrics metrics = context.getPageLoadMetrics();
+        if (metrics != null) {
+            metrics.asMap().forEach(measurements::put);
         }
         
-        // If not found, use a lock to prevent race conditions
-        featureLock.lock();
-        try {
-            // Check again in case another thread created it while we were waiting
-            existingTest = featureMap.get(featureUri);
-            if (existingTest != null) {
-                return existingTest;
+        measurements.forEach((measurement, value) -> {
+            // Metrics the browser did not report are NaN; they would skew the median and MAD of the baseline
+            if (Double.isNaN(value)) {
+                logger.debug("Not recording unreported measurement {} of scenario: {}", measurement, scenario.getName());
+                return;
+            }
+            String key = PerformanceHistory.scenarioKey(scenario, measurement);
+            // Judge against earlier runs before the current value joins the history
+            if (checkRegressions) {
+                BaselineVerdict verdict = history.compare(key, value);
+                if (verdict.isRegression()) {
+                    regressions.add(measurement + ": " + verdict);
+                }
+            }
+            history.append(key, value);
+        });
+        
+        if (!regressions.isEmpty()) {
+            String message = "Performance regression against the baseline: " + String.join("; ", regressions);
+            logger.warn("{} in scenario: {}", message, scenario.getName());
+            ReportNode test = context.getReportNode();
+            if (test != null) {
+                test.warning(message);
+            }
+            if (config.getBooleanProperty("perfRegressionFailsScenario", false)) {
+                throw new AssertionError(message);
             }
-            
-            // Create new feature node
-            ExtentTest featureTest = extentReports.createTest(featureName);
-            featureMap.put(featureUri, featureTest);
-            return featureTest;
-        } finally {
-            featureLock.unlock();
         }
     }
 
     @After(value = "@web", order = 10)
     public void afterWebScenario(Scenario scenario) {
-        // Get ExtentTest
-        ExtentTest test = context.getExtentTest();
+        // Get the report node
+        ReportNode test = context.getReportNode();
         
         // Log scenario status
         if (scenario.isFailed() && test != null) {
@@ -264,7 +308,10 @@ public class TestHooks {
             test.pass("Scenario passed");
         }
         
-        // Only reset context, don't close browser yet
+        // Return the page to the pool, the worker browser stays up
+        DriverManager.releasePageForScenario(scenario.getUri().toString());
+        
+        // Reset context for next scenario
         context.reset();
         
         logger.info("Web scenario completed with status: {}", scenario.getStatus());
@@ -272,8 +319,8 @@ public class TestHooks {
 
     @After("@mobile")
     public void afterMobileScenario(Scenario scenario) {
-        // Get ExtentTest
-        ExtentTest test = context.getExtentTest();
+        // Get the report node
+        ReportNode test = context.getReportNode();
         
         // Log scenario status
         if (scenario.isFailed() && test != null) {
@@ -283,8 +330,9 @@ public class TestHooks {
             test.pass("Scenario passed");
         }
         
-        // Close the mobile driver
-        DriverManager.closeMobileDriver();
+        // Hand the session back to the pool, the app is reset for the next scenario
+        DriverManager.releaseMobileDriver();
+        DriverManager.releaseDevice();
         
         // Reset context for next scenario
         context.reset();
@@ -292,23 +340,85 @@ public class TestHooks {
         logger.info("Mobile scenario completed with status: {}", scenario.getStatus());
     }
 
+    @After(order = 0)
+    public void streamFeatureReport(Scenario scenario) {
+        if (!streamingReport) {
+            return;
+        }
+        // Failure screenshots must reach the feature report before it is written
+        if (scenario.isFailed()) {
+            ScreenshotService.getInstance().awaitPending(Duration.ofSeconds(30));
+        }
+        String featureUri = scenario.getUri().toString();
+        if (StreamingReport.getInstance().scenarioFinished(featureUri)) {
+            // The feature is written, release everything kept for it
+            featureMap.remove(featureUri);
+            processedScenarios.keySet().removeIf(key -> key.startsWith(featureUri + ":"));
+        }
+    }
+
+    @After(order = Integer.MIN_VALUE)
+    public void unbindContext() {
+        // Runs after every other hook, the next scenario on this thread starts from a clean slate
+        TestContext.unbind();
+    }
+
     @AfterAll
     public static void afterAll() {
         // Close all drivers
         DriverManager.closeAllDrivers();
         DriverManager.closeAllFeatureBrowsers();
+        if (StandInServer.isEnabled()) {
+            StandInServer.getInstance().stop();
+        }
+        
+        // Screenshots are attached to the report once written, wait for them before flushing
+        ScreenshotService.getInstance().awaitPending(Duration.ofSeconds(30));
+        logger.info("Screenshot store: {}", ScreenshotService.getInstance().getStore());
+        logger.info("Network routing: {}", NetworkRouter.getStats());
+        logger.info("Mobile sessions: {}", DriverManager.getMobileSessionStats());
+        List<String> deviceUtilization = DriverManager.getDeviceUtilization();
+        deviceUtilization.forEach(line -> logger.info("Device {}", line));
+        if (PageSourceCache.isEnabled()) {
+            logger.info("Page source snapshots: {}", PageSourceCache.getStats());
+        }
+        logger.info("Mobile waits: {}", AdaptiveWait.getStats());
+        if (HarArchive.isEnabled()) {
+            logger.info("HAR archive: {}", HarArchive.getStats());
+        }
         
-        // Flush ExtentReports
+        if (streamingReport) {
+            StreamingReport.getInstance().setSystemInfo("Screenshot store", ScreenshotService.getInstance().getStore().toString());
+            StreamingReport.getInstance().setSystemInfo("Browser context pool", DriverManager.getPoolStats().toString());
+            StreamingReport.getInstance().setSystemInfo("Teardown", DriverManager.getTeardownStats().toString());
+            StreamingReport.getInstance().setSystemInfo("Network routing", NetworkRouter.getStats().toString());
+            StreamingReport.getInstance().setSystemInfo("Device utilization", String.join("; ", deviceUtilization));
+            StreamingReport.getInstance().finish();
+        }
+        
+        // Flush ExtentReports once the report sink has applied all queued events
         if (extentReports != null) {
-            extentReports.flush();
+            ReportEventSink.getInstance().setSystemInfo(extentReports, "Screenshot store",
+                    ScreenshotService.getInstance().getStore().toString());
+            ReportEventSink.getInstance().setSystemInfo(extentReports, "Network routing",
+                    NetworkRouter.getStats().toString());
+            ReportEventSink.getInstance().setSystemInfo(extentReports, "Teardown",
+                    DriverManager.getTeardownStats().toString());
+            ReportEventSink.getInstance().setSystemInfo(extentReports, "Device utilization",
+                    String.join("; ", deviceUtilization));
+            ReportEventSink.getInstance().flush(extentReports);
             // Print out how many feature nodes were created
             logger.info("Created {} feature nodes in the report", featureMap.size());
             // Print each feature URI for debugging
             featureMap.keySet().forEach(uri -> logger.info("Feature URI: {}", uri));
             logger.info("ProcessedScenarios size: {}", processedScenarios.size());
+            logger.info("Browser context pool ({}): {}",
+                    DriverManager.getIsolationLevel().name().toLowerCase(), DriverManager.getPoolStats());
             logger.info("ExtentReports flushed and completed.");
         }
         
+        PerformanceHistory.getInstance().close();
+        
         // Clear cache
         featureMap.clear();
         processedScenarios.clear();
@@ -317,24 +427,27 @@ public class TestHooks {
     @BeforeStep
     public void beforeStep(Scenario scenario) {
         // Get current step text
-        String stepText = extractStepText(scenario);
+        String stepText = ScenarioNames.extractStepText(scenario.toString());
         if (stepText != null && !stepText.isEmpty()) {
             // Log step name as INFO in report - simple version
-            ExtentTest test = context.getExtentTest();
+            ReportNode test = context.getReportNode();
             if (test != null) {
                 test.log(Status.INFO, "STEP: " + stepText);
             }
             logger.info("Executing step: {}", stepText);
         }
+        context.setAttribute("stepStartNanos", System.nanoTime());
     }
     
     @AfterStep
     public void afterStep(Scenario scenario) {
+        recordStepDuration(scenario);
+        
         // Optionally log step completion
         if (scenario.isFailed()) {
-            String stepText = extractStepText(scenario);
+            String stepText = ScenarioNames.extractStepText(scenario.toString());
             if (stepText != null && !stepText.isEmpty()) {
-                ExtentTest test = context.getExtentTest();
+                ReportNode test = context.getReportNode();
                 if (test != null) {
                     test.log(Status.FAIL, "FAILED STEP: " + stepText);
                 }
@@ -343,29 +456,21 @@ public class TestHooks {
     }
     
     /**
-     * Extract the current step text from the scenario
+     * Append the duration of the step that just finished to the performance history
+     * Steps are keyed by their position, as hooks do not see the step text reliably
      * @param scenario Cucumber scenario
-     * @return Step text or empty string if not available
      */
-    private String extractStepText(Scenario scenario) {
-        try {
-            // Get the scenario's string representation
-            String scenarioString = scenario.toString();
-            
-            // Look for step text pattern
-            if (scenarioString.contains("Step [")) {
-                int stepStart = scenarioString.lastIndexOf("Step [") + 6; // +6 to skip "Step ["
-                int stepEnd = scenarioString.indexOf("]", stepStart);
-                
-                if (stepEnd > stepStart) {
-                    return scenarioString.substring(stepStart, stepEnd);
-                }
-            }
-            
-            return "";
-        } catch (Exception e) {
-            logger.error("Error extracting step text", e);
-            return "";
+    private void recordStepDuration(Scenario scenario) {
+        Long stepStartNanos = context.getAttribute("stepStartNanos");
+        Integer stepIndex = context.getAttribute("stepIndex");
+        if (stepStartNanos == null || stepIndex == null) {
+            return;
+        }
+        context.setAttribute("stepIndex", stepIndex + 1);
+        if (!scenario.isFailed()) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - stepStartNanos);
+            PerformanceHistory.getInstance().append(
+                    PerformanceHistory.scenarioKey(scenario, "step " + (stepIndex + 1) + " duration"), millis);
         }
     }
 } 
\ No newline at end of file
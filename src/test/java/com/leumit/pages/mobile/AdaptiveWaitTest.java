@@ -0,0 +1,74 @@
+package com.leumit.pages.mobile;
+
+import org.openqa.selenium.TimeoutException;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * AdaptiveWaitTest - Tests of the timeouts AdaptiveWait learns per locator
+ * Conditions ignore the driver, so the waits run without a device.
+ */
+public class AdaptiveWaitTest {
+    private static final String KEY = "By.id: login";
+    private static final long MAX_TIMEOUT_MS = 400;
+    private static final long MIN_TIMEOUT_MS = 20;
+
+    private AdaptiveWait wait;
+
+    @BeforeMethod
+    public void setUp() {
+        wait = new AdaptiveWait(null, new AdaptiveWait.Settings(MAX_TIMEOUT_MS, MIN_TIMEOUT_MS, 2, 3, 10));
+    }
+
+    @Test
+    public void usesMaximumTimeoutUntilEnoughWaitsSucceeded() {
+        satisfy(2);
+        Assert.assertEquals(wait.timeoutMs(KEY), MAX_TIMEOUT_MS);
+    }
+
+    @Test
+    public void learnsTimeoutFromSatisfiedWaits() {
+        satisfy(3);
+        Assert.assertEquals(wait.timeoutMs(KEY), MIN_TIMEOUT_MS);
+    }
+
+    @Test
+    public void timeoutWidensLearnedTimeout() {
+        satisfy(3);
+        timeOut();
+        Assert.assertEquals(wait.timeoutMs(KEY), 2 * MIN_TIMEOUT_MS);
+        timeOut();
+        Assert.assertEquals(wait.timeoutMs(KEY), 4 * MIN_TIMEOUT_MS);
+    }
+
+    @Test
+    public void widenedTimeoutStaysWithinMaximum() {
+        satisfy(3);
+        for (int i = 0; i < 6; i++) {
+            timeOut();
+        }
+        Assert.assertEquals(wait.timeoutMs(KEY), MAX_TIMEOUT_MS);
+    }
+
+    @Test
+    public void satisfiedWaitsNarrowWidenedTimeoutAgain() {
+        satisfy(3);
+        timeOut();
+        timeOut();
+        satisfy(1);
+        Assert.assertEquals(wait.timeoutMs(KEY), 2 * MIN_TIMEOUT_MS);
+        satisfy(1);
+        Assert.assertEquals(wait.timeoutMs(KEY), MIN_TIMEOUT_MS);
+    }
+
+    private void satisfy(int count) {
+        for (int i = 0; i < count; i++) {
+            Assert.assertTrue(wait.until(KEY, driver -> true));
+        }
+    }
+
+    private void timeOut() {
+        Assert.assertThrows(TimeoutException.class, () -> wait.until(KEY, driver -> false));
+    }
+}
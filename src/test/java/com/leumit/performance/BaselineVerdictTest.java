@@ -0,0 +1,67 @@
+package com.leumit.performance;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * BaselineVerdictTest - Tests of the median and MAD baseline a value is judged against
+ */
+public class BaselineVerdictTest {
+    private static final double MAD_SCALE = 1.4826;
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void emptyHistoryHasNoBaseline() {
+        BaselineVerdict verdict = BaselineVerdict.evaluate(new double[0], 500, 5, 3.0, 0.1);
+        Assert.assertFalse(verdict.hasBaseline());
+        Assert.assertFalse(verdict.isRegression());
+        Assert.assertEquals(verdict.samples(), 0);
+    }
+
+    @Test
+    public void tooShortHistoryHasNoBaseline() {
+        BaselineVerdict verdict = BaselineVerdict.evaluate(new double[]{100, 100, 100, 100}, 500, 5, 3.0, 0.1);
+        Assert.assertFalse(verdict.hasBaseline());
+        Assert.assertFalse(verdict.isRegression());
+        Assert.assertEquals(verdict.samples(), 4);
+    }
+
+    @Test
+    public void medianOfOddAndEvenHistories() {
+        Assert.assertEquals(BaselineVerdict.median(new double[]{30, 10, 20}), 20, DELTA);
+        Assert.assertEquals(BaselineVerdict.median(new double[]{40, 10, 30, 20}), 25, DELTA);
+    }
+
+    @Test
+    public void thresholdIsMadMultipleAboveMedian() {
+        // Median 100, absolute deviations 0, 10, 10, 20, 20 with median 10
+        double[] history = {80, 100, 120, 90, 110};
+        double mad = MAD_SCALE * 10;
+        BaselineVerdict verdict = BaselineVerdict.evaluate(history, 144, 5, 3.0, 0.1);
+        Assert.assertTrue(verdict.hasBaseline());
+        Assert.assertEquals(verdict.median(), 100, DELTA);
+        Assert.assertEquals(verdict.mad(), mad, DELTA);
+        Assert.assertEquals(verdict.threshold(), 100 + 3 * mad, DELTA);
+        Assert.assertFalse(verdict.isRegression());
+        Assert.assertTrue(BaselineVerdict.evaluate(history, 145, 5, 3.0, 0.1).isRegression());
+    }
+
+    @Test
+    public void relativeMarginIsFloorForStableHistory() {
+        // MAD is 0, so the 10 % margin above the median decides
+        double[] history = {90, 100, 110, 100, 100};
+        BaselineVerdict verdict = BaselineVerdict.evaluate(history, 110, 5, 3.0, 0.1);
+        Assert.assertEquals(verdict.mad(), 0, DELTA);
+        Assert.assertEquals(verdict.threshold(), 110, DELTA);
+        Assert.assertFalse(verdict.isRegression());
+        Assert.assertTrue(BaselineVerdict.evaluate(history, 111, 5, 3.0, 0.1).isRegression());
+    }
+
+    @Test
+    public void outlierDoesNotMoveBaseline() {
+        double[] history = {100, 100, 100, 100, 100, 100, 10_000};
+        BaselineVerdict verdict = BaselineVerdict.evaluate(history, 115, 5, 3.0, 0.1);
+        Assert.assertEquals(verdict.median(), 100, DELTA);
+        Assert.assertTrue(verdict.isRegression());
+    }
+}
@@ -0,0 +1,120 @@
+package com.leumit.performance;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * LatencyHistogramTest - Tests of the log-bucketed histogram load runs and samplers record into
+ * Values below 256 are counted exactly; above that each bucket doubles its sub-bucket width,
+ * which keeps every value within 1/128 of its true size.
+ */
+public class LatencyHistogramTest {
+    private static final long HIGHEST = 3_600_000;
+    private static final double RELATIVE_ERROR = 1.0 / 128;
+
+    @Test
+    public void emptyHistogramReportsZeros() {
+        LatencyHistogram histogram = new LatencyHistogram(HIGHEST);
+        Assert.assertEquals(histogram.getTotalCount(), 0);
+        Assert.assertEquals(histogram.getValueAtPercentile(50), 0);
+        Assert.assertEquals(histogram.getValueAtPercentile(100), 0);
+        Assert.assertEquals(histogram.getMinValue(), 0);
+        Assert.assertEquals(histogram.getMaxValue(), 0);
+        Assert.assertEquals(histogram.getMean(), 0.0);
+    }
+
+    @Test
+    public void valuesBelowFirstBucketBoundaryAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram(HIGHEST);
+        for (long value = 1; value <= 200; value++) {
+            histogram.recordValue(value);
+        }
+        Assert.assertEquals(histogram.getValueAtPercentile(50), 100);
+        Assert.assertEquals(histogram.getValueAtPercentile(99), 198);
+        Assert.assertEquals(histogram.getValueAtPercentile(100), 200);
+        Assert.assertEquals(histogram.getMean(), 100.5);
+    }
+
+    @Test
+    public void valuesAcrossBucketBoundaryShareSubBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram(HIGHEST);
+        histogram.recordValue(255);
+        histogram.recordValue(256);
+        histogram.recordValue(257);
+        histogram.recordValue(1000);
+        // 255 is the last exact value; 256 and 257 fall in one sub-bucket two units wide
+        Assert.assertEquals(histogram.getValueAtPercentile(25), 255);
+        Assert.assertEquals(histogram.getValueAtPercentile(50), 257);
+        Assert.assertEquals(histogram.getValueAtPercentile(75), 257);
+        Assert.assertEquals(histogram.getValueAtPercentile(100), 1000);
+    }
+
+    @Test
+    public void percentilesStayWithinPrecisionOverWholeRange() {
+        LatencyHistogram histogram = new LatencyHistogram(HIGHEST);
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.recordValue(value);
+        }
+        for (double percentile : new double[]{1, 25, 50, 75, 90, 95, 99, 99.9}) {
+            long expected = (long) Math.ceil(percentile / 100 * 100_000);
+            long actual = histogram.getValueAtPercentile(percentile);
+            Assert.assertTrue(actual >= expected && actual <= expected * (1 + RELATIVE_ERROR),
+                    "p" + LatencyHistogram.formatPercentile(percentile) + " was " + actual + ", expected about " + expected);
+        }
+        Assert.assertEquals(histogram.getValueAtPercentile(100), 100_000);
+    }
+
+    @Test
+    public void outOfRangeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram(1000);
+        histogram.recordValue(-5);
+        histogram.recordValue(5000);
+        Assert.assertEquals(histogram.getTotalCount(), 2);
+        Assert.assertEquals(histogram.getMinValue(), 0);
+        Assert.assertEquals(histogram.getMaxValue(), 1000);
+        Assert.assertEquals(histogram.getValueAtPercentile(50), 0);
+        Assert.assertEquals(histogram.getValueAtPercentile(100), 1000);
+        Assert.assertEquals(histogram.getMean(), 500.0);
+    }
+
+    @Test
+    public void addMergesRecordedValues() {
+        LatencyHistogram merged = new LatencyHistogram(HIGHEST);
+        LatencyHistogram other = new LatencyHistogram(HIGHEST);
+        for (long value = 1; value <= 50; value++) {
+            merged.recordValue(value);
+            other.recordValue(value + 50);
+        }
+        merged.add(other);
+        merged.add(new LatencyHistogram(HIGHEST));
+
+        Assert.assertEquals(merged.getTotalCount(), 100);
+        Assert.assertEquals(merged.getMinValue(), 1);
+        Assert.assertEquals(merged.getMaxValue(), 100);
+        Assert.assertEquals(merged.getValueAtPercentile(50), 50);
+        Assert.assertEquals(merged.getValueAtPercentile(90), 90);
+        Assert.assertEquals(merged.getMean(), 50.5);
+    }
+
+    @Test
+    public void addRejectsHistogramWithDifferentRange() {
+        LatencyHistogram histogram = new LatencyHistogram(1000);
+        Assert.assertThrows(IllegalArgumentException.class, () -> histogram.add(new LatencyHistogram(HIGHEST)));
+    }
+
+    @Test
+    public void resetClearsRecordedValues() {
+        LatencyHistogram histogram = new LatencyHistogram(HIGHEST);
+        histogram.recordValue(42);
+        histogram.reset();
+        Assert.assertEquals(histogram.getTotalCount(), 0);
+        Assert.assertEquals(histogram.getMaxValue(), 0);
+        Assert.assertEquals(histogram.getValueAtPercentile(50), 0);
+    }
+
+    @Test
+    public void percentileLabels() {
+        Assert.assertEquals(LatencyHistogram.formatPercentile(95), "95");
+        Assert.assertEquals(LatencyHistogram.formatPercentile(99.9), "99.9");
+    }
+}
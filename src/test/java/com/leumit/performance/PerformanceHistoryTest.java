@@ -0,0 +1,106 @@
+package com.leumit.performance;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * PerformanceHistoryTest - Tests of the fixed-record series files read from their tail
+ */
+public class PerformanceHistoryTest {
+    private static final String KEY = "login/Open the home page:lcp";
+
+    private final List<PerformanceHistory> histories = new ArrayList<>();
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("perf-history");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown() throws IOException {
+        histories.forEach(PerformanceHistory::close);
+        histories.clear();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void readLastReturnsMostRecentValuesOldestFirst() {
+        appendRun(1, 0, 30);
+        Assert.assertEquals(run(2).readLast(KEY, 5), new double[]{25, 26, 27, 28, 29});
+    }
+
+    @Test
+    public void readLastReturnsWholeShortSeries() {
+        appendRun(1, 0, 3);
+        Assert.assertEquals(run(2).readLast(KEY, 10), new double[]{0, 1, 2});
+    }
+
+    @Test
+    public void readLastOfMissingSeriesIsEmpty() {
+        Assert.assertEquals(run(1).readLast(KEY, 10).length, 0);
+        Assert.assertEquals(run(1).readLast(KEY, 0).length, 0);
+    }
+
+    @Test
+    public void readLastExcludesCurrentRun() {
+        appendRun(1, 0, 30);
+        PerformanceHistory current = run(2);
+        // Up to 16 records of the current run at the tail are made up for by reading extra records
+        for (int i = 0; i < 16; i++) {
+            current.append(KEY, 1000 + i);
+        }
+        Assert.assertEquals(current.readLast(KEY, 5), new double[]{25, 26, 27, 28, 29});
+        Assert.assertEquals(run(3).readLast(KEY, 2), new double[]{1014, 1015});
+    }
+
+    @Test
+    public void unreportedValuesAreNotPartOfSeries() {
+        PerformanceHistory earlier = run(1);
+        earlier.append(KEY, 10);
+        earlier.append(KEY, Double.NaN);
+        // Older versions recorded -1 for metrics the browser did not report
+        earlier.append(KEY, -1);
+        earlier.append(KEY, 20);
+        Assert.assertEquals(run(2).readLast(KEY, 10), new double[]{10, 20});
+    }
+
+    @Test
+    public void shortHistoryHasNoBaseline() {
+        appendRun(1, 100, 2);
+        BaselineVerdict verdict = run(2).compare(KEY, 10_000);
+        Assert.assertFalse(verdict.hasBaseline());
+        Assert.assertFalse(verdict.isRegression());
+        Assert.assertEquals(verdict.samples(), 2);
+    }
+
+    /**
+     * Append count consecutive values starting at first, as run runId
+     */
+    private void appendRun(long runId, int first, int count) {
+        PerformanceHistory history = run(runId);
+        for (int i = 0; i < count; i++) {
+            history.append(KEY, first + i);
+        }
+    }
+
+    private PerformanceHistory run(long runId) {
+        PerformanceHistory history = new PerformanceHistory(directory, runId);
+        histories.add(history);
+        return history;
+    }
+}
@@ -1,11 +1,11 @@
 package com.leumit.runners;
 
-import io.cucumber.testng.AbstractTestNGCucumberTests;
+import com.leumit.drivers.DeviceRegistry;
 import io.cucumber.testng.CucumberOptions;
-import org.testng.annotations.DataProvider;
 
 /**
  * MobileTestRunner - Test runner for mobile Cucumber tests
+ * Scenarios run on the configured scenario executor, see ScheduledCucumberTests
  */
 @CucumberOptions(
     features = "src/test/resources/features/mobile",
@@ -22,15 +22,35 @@ import org.testng.annotations.DataProvider;
     tags = "@mobile",
     name = "MobileTest"
 )
-public class MobileTestRunner extends AbstractTestNGCucumberTests {
-    
+public class MobileTestRunner extends ScheduledCucumberTests {
+
+    /**
+     * Mobile scenarios are bounded by the devices, not by the threads
+     * Scenarios tagged @ios or @android lease devices of that platform, so devices of every platform count
+     * @param threadCount Configured thread count
+     * @return Number of devices, maxDevices or all configured devices by default
+     */
+    @Override
+    protected int getResourceLimit(int threadCount) {
+        int devices = DeviceRegistry.fromConfig(config).getDevices().size();
+        return config.getIntProperty("maxDevices", Math.max(1, devices));
+    }
+
+    /**
+     * Every mobile scenario starts from a reset app on a leased device, so none share state
+     * @return false
+     */
+    @Override
+    protected boolean keepFeaturesTogether() {
+        return false;
+    }
+
     /**
-     * Run scenarios in parallel
-     * @return Scenario data provider
+     * Devices are few and scenarios long; starting the longest first keeps the devices busy to the end
+     * @return scheduleLongestFirst, true by default
      */
     @Override
-    @DataProvider(parallel = true)
-    public Object[][] scenarios() {
-        return super.scenarios();
+    protected boolean scheduleLongestFirst() {
+        return config.getBooleanProperty("scheduleLongestFirst", true);
     }
-} 
\ No newline at end of file
+}
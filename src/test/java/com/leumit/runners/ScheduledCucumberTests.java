@@ -0,0 +1,166 @@
+package com.leumit.runners;
+
+import com.leumit.config.ConfigManager;
+import com.leumit.drivers.DriverManager;
+import com.leumit.drivers.IsolationLevel;
+import com.leumit.execution.FeatureAffinityScheduler;
+import com.leumit.execution.ScenarioExecutor;
+import com.leumit.execution.VirtualThreadScenarioExecutor;
+import com.leumit.performance.PerformanceHistory;
+import com.leumit.reporting.StreamingReport;
+import io.cucumber.testng.FeatureWrapper;
+import io.cucumber.testng.Pickle;
+import io.cucumber.testng.PickleWrapper;
+import io.cucumber.testng.TestNGCucumberRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.ITestContext;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlTest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ScheduledCucumberTests - Base runner that executes scenarios on the feature-affinity scheduler
+ * TestNG still reports one test per scenario, but the scenarios themselves run on scheduler
+ * workers, so features run in parallel while each feature stays on one worker's browser.
+ * Honours the parallel and threadCount configuration keys; with scenarioExecutor=virtual every
+ * scenario runs on its own virtual thread instead, bounded by the number of browsers or devices.
+ */
+public abstract class ScheduledCucumberTests {
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledCucumberTests.class);
+    protected final ConfigManager config = ConfigManager.getInstance();
+    private final Map<Pickle, CompletableFuture<Void>> results = new ConcurrentHashMap<>();
+    private TestNGCucumberRunner cucumberRunner;
+    private ScenarioExecutor scheduler;
+
+    @BeforeClass(alwaysRun = true)
+    public void setUpClass(ITestContext context) {
+        XmlTest currentXmlTest = context.getCurrentXmlTest();
+        cucumberRunner = new TestNGCucumberRunner(this.getClass(), currentXmlTest::getParameter);
+    }
+
+    /**
+     * Provide the scenarios to TestNG and hand them all to the scheduler up front
+     * @return Scenario data provider
+     */
+    @DataProvider
+    public Object[][] scenarios() {
+        if (cucumberRunner == null) {
+            return new Object[0][0];
+        }
+        Object[][] scenarios = cucumberRunner.provideScenarios();
+
+        boolean parallel = config.getBooleanProperty("parallel", false);
+        int threadCount = parallel ? config.getIntProperty("threadCount", 1) : 1;
+        scheduler = createExecutor(parallel, threadCount);
+
+        List<Pickle> pickles = new ArrayList<>();
+        for (Object[] scenario : scenarios) {
+            pickles.add(((PickleWrapper) scenario[0]).getPickle());
+        }
+        if (scheduleLongestFirst()) {
+            // Long scenarios started last would leave the other resources idle at the end of the run
+            PerformanceHistory history = PerformanceHistory.getInstance();
+            Map<Pickle, Double> expected = new HashMap<>();
+            pickles.forEach(pickle -> expected.put(pickle, history.expectedValue(
+                    PerformanceHistory.scenarioKey(pickle.getUri().toString(), pickle.getName(), "duration"))));
+            // Scenarios without history go first, their duration is unknown
+            pickles.sort(Comparator.comparingDouble((Pickle pickle) -> {
+                double duration = expected.get(pickle);
+                return Double.isNaN(duration) ? Double.NEGATIVE_INFINITY : -duration;
+            }));
+        }
+
+        Map<String, Integer> scenariosPerFeature = new HashMap<>();
+        for (Pickle pickle : pickles) {
+            String featureUri = pickle.getUri().toString();
+            scenariosPerFeature.merge(featureUri, 1, Integer::sum);
+            results.put(pickle, scheduler.submit(featureUri, () -> cucumberRunner.runScenario(pickle)));
+        }
+        // Lets the streaming report write each feature as soon as its last scenario is done
+        scenariosPerFeature.forEach(StreamingReport.getInstance()::expectScenarios);
+        logger.info("Running {} scenarios with parallel={} on {}",
+                scenarios.length, parallel, scheduler.describe());
+        scheduler.start();
+        return scenarios;
+    }
+
+    /**
+     * Create the executor chosen by scenarioExecutor: affinity (default) or virtual
+     * @param parallel Whether scenarios may run at the same time
+     * @param threadCount Number of workers of the feature-affinity scheduler
+     * @return Executor for this run
+     */
+    protected ScenarioExecutor createExecutor(boolean parallel, int threadCount) {
+        if (!"virtual".equalsIgnoreCase(config.getProperty("scenarioExecutor", "affinity"))) {
+            return new FeatureAffinityScheduler(threadCount, DriverManager::closeAllDrivers);
+        }
+        int resources = parallel ? getResourceLimit(threadCount) : 1;
+        return new VirtualThreadScenarioExecutor(resources, keepFeaturesTogether(), DriverManager::releaseWorker);
+    }
+
+    /**
+     * Whether the scenarios of a feature must run one after another on virtual threads
+     * @return true if scenarios share a feature-wide or worker-wide page
+     */
+    protected boolean keepFeaturesTogether() {
+        return DriverManager.getIsolationLevel() != IsolationLevel.SCENARIO;
+    }
+
+    /**
+     * Whether scenarios are started longest first, by their median duration in the performance history
+     * @return false, keeping the order of the feature files
+     */
+    protected boolean scheduleLongestFirst() {
+        return false;
+    }
+
+    /**
+     * Number of scenarios that may run at the same time on virtual threads
+     * @param threadCount Configured thread count
+     * @return Number of browsers, maxBrowsers or threadCount by default
+     */
+    protected int getResourceLimit(int threadCount) {
+        return config.getIntProperty("maxBrowsers", threadCount);
+    }
+
+    /**
+     * Report the outcome of a scenario that ran on a scheduler worker
+     * @param pickleWrapper Scenario
+     * @param featureWrapper Feature of the scenario
+     */
+    @Test(groups = "cucumber", description = "Runs Cucumber Scenarios", dataProvider = "scenarios")
+    public void runScenario(PickleWrapper pickleWrapper, FeatureWrapper featureWrapper) throws Throwable {
+        try {
+            results.remove(pickleWrapper.getPickle()).join();
+        } catch (CompletionException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Wait for the workers, then finish the Cucumber run and clean up all resources
+     */
+    @AfterClass(alwaysRun = true)
+    public void tearDownClass() throws InterruptedException {
+        if (scheduler != null && !scheduler.awaitTermination(1, TimeUnit.MINUTES)) {
+            logger.warn("Scheduler workers did not finish in time");
+        }
+        if (cucumberRunner != null) {
+            cucumberRunner.finish();
+        }
+        DriverManager.closeAllFeatureBrowsers();
+    }
+}
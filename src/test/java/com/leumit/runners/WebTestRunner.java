@@ -1,13 +1,10 @@
 package com.leumit.runners;
 
-import com.leumit.drivers.DriverManager;
-import io.cucumber.testng.AbstractTestNGCucumberTests;
 import io.cucumber.testng.CucumberOptions;
-import org.testng.annotations.DataProvider;
-import org.testng.annotations.AfterClass;
 
 /**
  * WebTestRunner - Test runner for web Cucumber tests
+ * Features run in parallel on the feature-affinity scheduler, see ScheduledCucumberTests
  */
 @CucumberOptions(
     features = "src/test/resources/features/web",
@@ -21,25 +18,7 @@ import org.testng.annotations.AfterClass;
         "rerun:target/failed_scenarios.txt"
     },
     monochrome = true,
-    tags = "@web"
+    tags = "@web and not @load"
 )
-public class WebTestRunner extends AbstractTestNGCucumberTests {
-    
-    /**
-     * Run scenarios sequentially to share browser per feature
-     * @return Scenario data provider
-     */
-    @Override
-    @DataProvider(parallel = false)
-    public Object[][] scenarios() {
-        return super.scenarios();
-    }
-    
-    /**
-     * Clean up all resources after the test class runs
-     */
-    @AfterClass
-    public void cleanUp() {
-        DriverManager.closeAllFeatureBrowsers();
-    }
-} 
\ No newline at end of file
+public class WebTestRunner extends ScheduledCucumberTests {
+}
@@ -0,0 +1,103 @@
+package com.leumit.steps;
+
+import com.aventstack.extentreports.markuputils.MarkupHelper;
+import com.leumit.config.ConfigManager;
+import com.leumit.context.TestContext;
+import com.leumit.pages.web.LeumitHomePage;
+import com.leumit.performance.LatencyHistogram;
+import com.leumit.performance.LoadGenerator;
+import com.leumit.performance.LoadProfile;
+import com.leumit.performance.LoadReport;
+import com.leumit.reporting.ReportNode;
+import com.leumit.utils.AssertUtils;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * LoadSteps - Step definitions for browser-based synthetic load runs
+ * Each iteration opens the configured baseUrl through the Leumit home page object
+ */
+public class LoadSteps {
+    private static final Logger logger = LoggerFactory.getLogger(LoadSteps.class);
+    private final TestContext context;
+    private final ConfigManager config = ConfigManager.getInstance();
+    private LoadReport report;
+
+    /**
+     * Create the step definitions of a scenario
+     * @param context Scenario context, injected by the object factory
+     */
+    public LoadSteps(TestContext context) {
+        this.context = context;
+    }
+
+    @When("I run a closed load of {int} users for {int} seconds with {int} ms think time")
+    public void iRunAClosedLoad(int users, int seconds, int thinkTimeMillis) throws InterruptedException {
+        runLoad(LoadProfile.closed(users, Duration.ofSeconds(seconds), Duration.ofMillis(thinkTimeMillis)));
+    }
+
+    @When("I run an open load of {double} arrivals per second for {int} seconds with at most {int} users")
+    public void iRunAnOpenLoad(double arrivalsPerSecond, int seconds, int maxUsers) throws InterruptedException {
+        runLoad(LoadProfile.open(arrivalsPerSecond, Duration.ofSeconds(seconds), maxUsers));
+    }
+
+    @Then("The load error rate should be below {double} percent")
+    public void theLoadErrorRateShouldBeBelow(double maxErrorRate) {
+        double errorRate = getReport().getErrorRatePercent();
+        AssertUtils.assertTrue(errorRate < maxErrorRate,
+                () -> String.format("Load error rate is below %.2f%% (actual: %.2f%%)", maxErrorRate, errorRate),
+                () -> String.format("Load error rate is not below %.2f%% (actual: %.2f%%)", maxErrorRate, errorRate));
+    }
+
+    @Then("The load {percentile} latency should be below {int} ms")
+    public void theLoadLatencyShouldBeBelow(double percentile, int maxLatency) {
+        long latency = getReport().getLatency().getValueAtPercentile(percentile);
+        String label = percentile == 100.0 ? "max" : "p" + LatencyHistogram.formatPercentile(percentile);
+        AssertUtils.assertTrue(latency < maxLatency,
+                () -> "Load " + label + " latency is below " + maxLatency + " ms (actual: " + latency + " ms)",
+                () -> "Load " + label + " latency is not below " + maxLatency + " ms (actual: " + latency + " ms)");
+    }
+
+    @Then("The load throughput should be at least {double} iterations per second")
+    public void theLoadThroughputShouldBeAtLeast(double minThroughput) {
+        double throughput = getReport().getThroughput();
+        AssertUtils.assertTrue(throughput >= minThroughput,
+                () -> String.format("Load throughput is at least %.2f/s (actual: %.2f/s)", minThroughput, throughput),
+                () -> String.format("Load throughput is below %.2f/s (actual: %.2f/s)", minThroughput, throughput));
+    }
+
+    /**
+     * Run the load against baseUrl and attach the results to the scenario node
+     * @param profile Load profile to drive
+     */
+    private void runLoad(LoadProfile profile) throws InterruptedException {
+        String baseUrl = config.getProperty("baseUrl");
+        logger.info("Running {} load against: {}", profile.model().name().toLowerCase(), baseUrl);
+
+        report = new LoadGenerator(profile, page -> {
+            LeumitHomePage homePage = new LeumitHomePage(page).openHomePage(baseUrl);
+            if (homePage.getTitle().isEmpty()) {
+                throw new IllegalStateException("Page loaded without a title: " + baseUrl);
+            }
+        }).run();
+        context.setAttribute("loadReport", report);
+
+        ReportNode test = context.getReportNode();
+        if (test != null) {
+            test.info(report.toString());
+            test.info(MarkupHelper.createTable(report.toIntervalTable()));
+            test.info(MarkupHelper.createTable(report.getLatency().toPercentileTable()));
+        }
+    }
+
+    private LoadReport getReport() {
+        AssertUtils.assertNotNull(report,
+                () -> "Load run results are available",
+                () -> "No load run has been executed in this scenario");
+        return report;
+    }
+}
@@ -16,8 +16,16 @@ import org.slf4j.LoggerFactory;
  */
 public class MobileSteps {
     private static final Logger logger = LoggerFactory.getLogger(MobileSteps.class);
-    private final TestContext context = TestContext.getInstance();
+    private final TestContext context;
     private LeumitMobileApp mobileApp;
+
+    /**
+     * Create the step definitions of a scenario
+     * @param context Scenario context, injected by the object factory
+     */
+    public MobileSteps(TestContext context) {
+        this.context = context;
+    }
     
     /**
      * Initialize the mobile app if not already initialized
@@ -1,10 +1,19 @@
 package com.leumit.steps;
 
+import com.aventstack.extentreports.markuputils.MarkupHelper;
+import com.leumit.config.ConfigManager;
 import com.leumit.context.TestContext;
 import com.leumit.drivers.DriverManager;
 import com.leumit.pages.web.LeumitHomePage;
+import com.leumit.performance.BaselineVerdict;
+import com.leumit.performance.LatencyHistogram;
+import com.leumit.performance.PageLoadMetrics;
+import com.leumit.performance.PageLoadSampler;
+import com.leumit.performance.PerformanceHistory;
+import com.leumit.reporting.ReportNode;
 import com.leumit.utils.AssertUtils;
 import com.microsoft.playwright.Page;
+import io.cucumber.java.ParameterType;
 import io.cucumber.java.en.And;
 import io.cucumber.java.en.Given;
 import io.cucumber.java.en.Then;
@@ -16,8 +25,16 @@ import org.slf4j.LoggerFactory;
  */
 public class WebSteps {
     private static final Logger logger = LoggerFactory.getLogger(WebSteps.class);
-    private final TestContext context = TestContext.getInstance();
+    private final TestContext context;
     private LeumitHomePage homePage;
+
+    /**
+     * Create the step definitions of a scenario
+     * @param context Scenario context, injected by the object factory
+     */
+    public WebSteps(TestContext context) {
+        this.context = context;
+    }
     
     /**
      * Initialize the home page if not already initialized
@@ -32,7 +49,7 @@ public class WebSteps {
             if (page != null) {
                 homePage = new LeumitHomePage(page);
             } else {
-                // Fallback to thread-local page
+                // Fallback to the scenario's page
                 page = DriverManager.getPage();
                 homePage = new LeumitHomePage(page);
             }
@@ -52,8 +69,8 @@ public class WebSteps {
         logger.info("Actual page title: {}", actualTitle);
         
         AssertUtils.assertContains(actualTitle, expectedTitle, 
-                "Page title contains expected text: " + expectedTitle,
-                "Page title does not contain expected text: " + expectedTitle);
+                () -> "Page title contains expected text: " + expectedTitle,
+                () -> "Page title does not contain expected text: " + expectedTitle);
     }
     
     @Then("The page should load in less than {string} milliseconds")
@@ -63,8 +80,114 @@ public class WebSteps {
         logger.info("Page load time: {} ms", actualLoadTime);
         
         AssertUtils.assertLessThan(actualLoadTime, maxLoadTime,
-                "Page loaded in less than " + maxLoadTime + " milliseconds (actual: " + actualLoadTime + " ms)",
-                "Page loaded in more than " + maxLoadTime + " milliseconds (actual: " + actualLoadTime + " ms)");
+                () -> "Page loaded in less than " + maxLoadTime + " milliseconds (actual: " + actualLoadTime + " ms)",
+                () -> "Page loaded in more than " + maxLoadTime + " milliseconds (actual: " + actualLoadTime + " ms)");
+    }
+    
+    /**
+     * Percentile of a sampled distribution, e.g. p50, p95, p99.9 or max
+     * @param value Percentile as written in the feature file
+     * @return Percentile between 0 and 100
+     */
+    @ParameterType("p\\d+(?:\\.\\d+)?|max")
+    public double percentile(String value) {
+        return "max".equals(value) ? 100.0 : Double.parseDouble(value.substring(1));
+    }
+    
+    @Then("The page {percentile} load time over {int} iterations should be below {int} ms")
+    public void thePagePercentileLoadTimeShouldBeBelow(double percentile, int iterations, int maxLoadTime) {
+        String url = getHomePage().getUrl();
+        int warmupIterations = ConfigManager.getInstance().getIntProperty("perfWarmupIterations", 2);
+        
+        PageLoadSampler.Result result = PageLoadSampler.sample(url, "load", warmupIterations, iterations);
+        LatencyHistogram histogram = result.histogram();
+        context.setAttribute("pageLoadHistogram", histogram);
+        
+        // Attach the full distribution to the scenario node
+        ReportNode test = context.getReportNode();
+        if (test != null) {
+            test.info("Page load time over " + iterations + " iterations (ms)");
+            test.info(MarkupHelper.createTable(histogram.toPercentileTable()));
+            test.info(MarkupHelper.createTable(histogram.toDistributionTable()));
+        }
+        
+        AssertUtils.assertTrue(result.failures() == 0,
+                () -> "All " + iterations + " page load iterations completed",
+                () -> result.failures() + " of " + iterations + " page load iterations failed");
+        
+        long actualLoadTime = histogram.getValueAtPercentile(percentile);
+        String label = percentile == 100.0 ? "max" : "p" + LatencyHistogram.formatPercentile(percentile);
+        AssertUtils.assertTrue(actualLoadTime < maxLoadTime,
+                () -> "Page " + label + " load time is below " + maxLoadTime + " ms (actual: " + actualLoadTime + " ms)",
+                () -> "Page " + label + " load time is not below " + maxLoadTime + " ms (actual: " + actualLoadTime + " ms)");
+    }
+    
+    @Then("The page metric {string} should be less than {string}")
+    public void thePageMetricShouldBeLessThan(String metricName, String maxValueStr) {
+        double maxValue = Double.parseDouble(maxValueStr);
+        PageLoadMetrics metrics = context.getPageLoadMetrics();
+        if (metrics == null) {
+            metrics = getHomePage().collectPageLoadMetrics();
+        }
+        AssertUtils.assertNotNull(metrics,
+                () -> "Page load metrics collected",
+                () -> "Browser did not report page load metrics");
+        
+        // A metric the browser did not report is NaN, there is nothing to compare
+        boolean reported = metrics.isReported(metricName);
+        AssertUtils.assertTrue(reported,
+                () -> "Page metric " + metricName + " reported",
+                () -> "Browser did not report page metric " + metricName + ", cannot check it is less than " + maxValueStr);
+        if (!reported) {
+            return;
+        }
+        double actualValue = metrics.get(metricName);
+        logger.info("Page metric {}: {}", metricName, actualValue);
+        
+        AssertUtils.assertTrue(actualValue < maxValue,
+                () -> "Page metric " + metricName + " is less than " + maxValueStr + " (actual: " + actualValue + ")",
+                () -> "Page metric " + metricName + " is not less than " + maxValueStr + " (actual: " + actualValue + ")");
+    }
+    
+    @Then("The page metric {string} should not regress from the baseline")
+    public void thePageMetricShouldNotRegress(String metricName) {
+        PageLoadMetrics metrics = context.getPageLoadMetrics();
+        if (metrics == null) {
+            metrics = getHomePage().collectPageLoadMetrics();
+        }
+        AssertUtils.assertNotNull(metrics,
+                () -> "Page load metrics collected",
+                () -> "Browser did not report page load metrics");
+
+        boolean reported = metrics.isReported(metricName);
+        AssertUtils.assertTrue(reported,
+                () -> "Page metric " + metricName + " reported",
+                () -> "Browser did not report page metric " + metricName + ", cannot compare it to the baseline");
+        if (!reported) {
+            return;
+        }
+
+        // The current value is appended to the history after the scenario, see TestHooks
+        String key = PerformanceHistory.scenarioKey(context.getScenario(), metricName);
+        BaselineVerdict verdict = PerformanceHistory.getInstance().compare(key, metrics.get(metricName));
+        logger.info("Page metric {} against baseline: {}", metricName, verdict);
+
+        if (!verdict.hasBaseline()) {
+            ReportNode test = context.getReportNode();
+            if (test != null) {
+                test.info("Page metric " + metricName + ": " + verdict);
+            }
+            return;
+        }
+        AssertUtils.assertTrue(!verdict.isRegression(),
+                () -> "Page metric " + metricName + " is within the baseline (" + verdict + ")",
+                () -> "Page metric " + metricName + " regressed from the baseline (" + verdict + ")");
+    }
+
+    @Given("Screenshots are clipped to {string}")
+    public void screenshotsAreClippedTo(String selector) {
+        // Used when screenshotMode=element
+        context.setAttribute("screenshotElement", selector);
     }
     
     @Then("The logo at {string} should be visible")
@@ -1,6 +1,6 @@
 Feature: Basic Web Client UI Checks
 
-  @web @ui
+  @web @ui @lean
   Scenario: Navigate to home page
     Given I open the URL "https://leumit.co.il/"
     Then The page title should contain "לאומית"
@@ -10,7 +10,7 @@ Feature: Basic Web Client UI Checks
     Given I open the URL "https://leumit.co.il/"
     Then The logo at "img" should be visible
 
-  @web @ui
+  @web @ui @lean
   Scenario: Login fields should be visible
     Given I open the URL "https://www.leumit.co.il/"
     Then The identification field "input[name='IdNumTextBox']" should be visible
@@ -0,0 +1,13 @@
+Feature: Basic Web Load Tests
+
+  @web @load
+  Scenario: Closed load on the home page
+    When I run a closed load of 2 users for 20 seconds with 1000 ms think time
+    Then The load error rate should be below 5.0 percent
+    And The load p95 latency should be below 10000 ms
+
+  @web @load
+  Scenario: Open load on the home page
+    When I run an open load of 0.5 arrivals per second for 20 seconds with at most 4 users
+    Then The load error rate should be below 5.0 percent
+    And The load throughput should be at least 0.3 iterations per second
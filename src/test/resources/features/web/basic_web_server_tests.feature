@@ -4,7 +4,14 @@ Feature: Basic Web Server Tests
   Scenario: Performance testing
     Given I open the URL "https://leumit.co.il/"
     Then The page title should contain "לאומית"
-    And The page should load in less than "10000" milliseconds
+    And The page metric "load" should not regress from the baseline
+    And The page metric "ttfb" should be less than "3000"
+    And The page metric "cls" should be less than "0.25"
+
+  @web @performance
+  Scenario: Page load percentiles
+    Given I open the URL "https://leumit.co.il/"
+    Then The page p95 load time over 10 iterations should be below 10000 ms
 
   @web
   Scenario: Page title verification